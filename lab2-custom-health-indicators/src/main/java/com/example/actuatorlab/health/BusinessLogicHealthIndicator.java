@@ -1,85 +1,68 @@
 package com.example.actuatorlab.health;
 
-import org.springframework.boot.actuator.health.Health;
-import org.springframework.boot.actuator.health.HealthIndicator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.time.Duration;
 
 @Component
 public class BusinessLogicHealthIndicator implements HealthIndicator {
     
-    // TODO 9: Add counters to track requests and errors
-    // TODO 10: Uncomment the following code:
-    /*
-    private final AtomicLong requestCount = new AtomicLong(0);
-    private final AtomicLong errorCount = new AtomicLong(0);
-    */
+    // Only the recent window counts, so a fresh outage shows up right away
+    // instead of being diluted by the whole lifetime of the application
+    private final SlidingWindowCounter window;
+    private final double degradedThreshold;
+    private final double downThreshold;
     
-    // Placeholder counters - replace with actual implementation
-    private final AtomicLong requestCount = new AtomicLong(0);
-    private final AtomicLong errorCount = new AtomicLong(0);
+    public BusinessLogicHealthIndicator(@Value("${business-health.window:60s}") Duration window,
+                                        @Value("${business-health.buckets:60}") int buckets,
+                                        @Value("${business-health.degraded-threshold:0.05}") double degradedThreshold,
+                                        @Value("${business-health.down-threshold:0.10}") double downThreshold) {
+        this.window = new SlidingWindowCounter(window, buckets);
+        this.degradedThreshold = degradedThreshold;
+        this.downThreshold = downThreshold;
+    }
     
-    // TODO 11: Add methods to increment counters
-    // TODO 12: Uncomment the following methods:
-    /*
     public void incrementRequestCount() {
-        requestCount.incrementAndGet();
+        window.recordRequest();
     }
     
-    public void incrementErrorCount() {
-        errorCount.incrementAndGet();
+    /**
+     * Counts a failed request: its request and its error are recorded together.
+     */
+    public void recordFailure() {
+        window.recordFailure();
     }
-    */
     
     @Override
     public Health health() {
-        // TODO 13: Implement business logic health check
-        // 1. Get total requests and errors
-        // 2. Calculate error rate
-        // 3. Return appropriate health status based on error rate:
-        //    - UP if error rate <= 5%
-        //    - DEGRADED if error rate > 5% and <= 10%
-        //    - DOWN if error rate > 10%
-        // 4. Include details like error rate, total requests, total errors
-        
-        // TODO 14: Uncomment the following code to implement the health check:
-        /*
-        long totalRequests = requestCount.get();
-        long totalErrors = errorCount.get();
+        SlidingWindowCounter.Counts counts = window.snapshot();
+        long totalRequests = counts.requests();
+        long totalErrors = counts.errors();
         
         if (totalRequests == 0) {
             return Health.unknown()
-                    .withDetail("status", "No requests processed yet")
+                    .withDetail("status", "No requests processed in the last " + window.getWindow().toSeconds() + "s")
                     .build();
         }
         
-        double errorRate = (double) totalErrors / totalRequests;
+        double errorRate = counts.errorRate();
+        Health.Builder builder;
         
-        if (errorRate > 0.1) { // More than 10% error rate
-            return Health.down()
-                    .withDetail("error-rate", String.format("%.2f%%", errorRate * 100))
-                    .withDetail("total-requests", totalRequests)
-                    .withDetail("total-errors", totalErrors)
-                    .build();
-        } else if (errorRate > 0.05) { // More than 5% error rate
-            return Health.status("DEGRADED")
-                    .withDetail("error-rate", String.format("%.2f%%", errorRate * 100))
-                    .withDetail("total-requests", totalRequests)
-                    .withDetail("total-errors", totalErrors)
-                    .build();
+        if (errorRate > downThreshold) {
+            builder = Health.down();
+        } else if (errorRate > degradedThreshold) {
+            builder = Health.status("DEGRADED");
         } else {
-            return Health.up()
-                    .withDetail("error-rate", String.format("%.2f%%", errorRate * 100))
-                    .withDetail("total-requests", totalRequests)
-                    .withDetail("total-errors", totalErrors)
-                    .build();
+            builder = Health.up();
         }
-        */
-        
-        // Placeholder return - replace with actual implementation
-        return Health.unknown()
-                .withDetail("status", "Business logic health check not implemented")
+        return builder
+                .withDetail("error-rate", String.format("%.2f%%", errorRate * 100))
+                .withDetail("window", window.getWindow().toSeconds() + "s")
+                .withDetail("total-requests", totalRequests)
+                .withDetail("total-errors", totalErrors)
                 .build();
     }
-} 
\ No newline at end of file
+}
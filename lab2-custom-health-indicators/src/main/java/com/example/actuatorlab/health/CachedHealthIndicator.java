@@ -0,0 +1,135 @@
+package com.example.actuatorlab.health;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Wraps a health indicator so that /actuator/health answers from the result of
+ * the last background check instead of calling the indicator itself.
+ *
+ * Checks are started by HealthCheckRefresher. Blocking indicators run on the
+ * refresher's executor; reactive ones are subscribed to and never occupy a
+ * thread while waiting. A check that runs past its timeout is reported as DOWN,
+ * and no new check of the same indicator starts until the hung one returns.
+ */
+public class CachedHealthIndicator implements HealthIndicator {
+    
+    private final String name;
+    private final Check check;
+    private final Duration timeout;
+    private final AtomicBoolean checking = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+    
+    public CachedHealthIndicator(String name, HealthIndicator delegate, Duration timeout) {
+        this(name, executor -> CompletableFuture.supplyAsync(() -> runBlocking(delegate), executor), timeout);
+    }
+    
+    public CachedHealthIndicator(String name, ReactiveHealthIndicator delegate, Duration timeout) {
+        this(name, executor -> delegate.health().toFuture(), timeout);
+    }
+    
+    private CachedHealthIndicator(String name, Check check, Duration timeout) {
+        this.name = name;
+        this.check = check;
+        this.timeout = timeout;
+    }
+    
+    @Override
+    public Health health() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Health.unknown()
+                    .withDetail("status", "Awaiting first background check")
+                    .build();
+        }
+        return Health.status(current.health.getStatus())
+                .withDetails(current.health.getDetails())
+                .withDetail("checked-at", Instant.ofEpochMilli(current.checkedAt).toString())
+                .withDetail("staleness-ms", System.currentTimeMillis() - current.checkedAt)
+                .withDetail("check-duration-ms", current.durationMillis)
+                .build();
+    }
+    
+    /**
+     * Starts a check on the given executor. Returns a future that completes
+     * when the snapshot has been updated, or an already completed future if the
+     * previous check of this indicator is still running.
+     */
+    CompletableFuture<Void> refresh(Executor executor) {
+        if (!checking.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = System.nanoTime();
+        CompletableFuture<Health> running;
+        try {
+            running = check.start(executor);
+        } catch (RuntimeException e) {
+            running = CompletableFuture.failedFuture(e);
+        }
+        running.whenComplete((health, error) -> checking.set(false));
+        return running.copy()
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((health, error) -> {
+                    long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    snapshot = new Snapshot(health != null ? health : failed(error),
+                            System.currentTimeMillis(), durationMillis);
+                    return null;
+                });
+    }
+    
+    private static Health runBlocking(HealthIndicator delegate) {
+        try {
+            return delegate.health();
+        } catch (Exception e) {
+            return Health.down(e).build();
+        }
+    }
+    
+    /**
+     * The DOWN result of a check that failed, or that completed without a
+     * result (a reactive indicator whose Mono was empty).
+     */
+    private Health failed(Throwable error) {
+        if (error == null) {
+            return Health.down()
+                    .withDetail("error", "Health check completed without a result")
+                    .build();
+        }
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof TimeoutException) {
+            return Health.down()
+                    .withDetail("error", "Health check timed out after " + timeout.toMillis() + " ms")
+                    .build();
+        }
+        // not getMessage(): it is often null, and a null detail would fail the build
+        return Health.down().withException(error).build();
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public Duration getTimeout() {
+        return timeout;
+    }
+    
+    @FunctionalInterface
+    private interface Check {
+        CompletableFuture<Health> start(Executor executor);
+    }
+    
+    private record Snapshot(Health health, long checkedAt, long durationMillis) {
+    }
+}
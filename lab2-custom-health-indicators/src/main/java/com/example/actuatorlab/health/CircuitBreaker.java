@@ -0,0 +1,75 @@
+package com.example.actuatorlab.health;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Minimal circuit breaker for calls to an external dependency.
+ *
+ * After failureThreshold consecutive failures the breaker opens and calls are
+ * refused. Once openDuration has passed, a single probe call is let through
+ * (half-open): success closes the breaker, failure opens it again.
+ */
+public class CircuitBreaker {
+    
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+    
+    private final int failureThreshold;
+    private final long openNanos;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAt;
+    
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+    }
+    
+    /**
+     * Returns true if a call may be made now.
+     */
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            // only the thread that moves the breaker to half-open gets to probe
+            return state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        }
+        return false;
+    }
+    
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        state.set(State.CLOSED);
+    }
+    
+    public void onFailure() {
+        int failures = consecutiveFailures.incrementAndGet();
+        State current = state.get();
+        if (current == State.HALF_OPEN || (current == State.CLOSED && failures >= failureThreshold)) {
+            openedAt = System.nanoTime();
+            state.set(State.OPEN);
+        }
+    }
+    
+    public State getState() {
+        return state.get();
+    }
+    
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+    
+    /**
+     * Time left until the next half-open probe, zero unless the breaker is open.
+     */
+    public Duration getRetryIn() {
+        if (state.get() != State.OPEN) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0, openNanos - (System.nanoTime() - openedAt)));
+    }
+}
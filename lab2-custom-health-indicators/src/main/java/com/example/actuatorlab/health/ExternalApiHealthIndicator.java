@@ -1,76 +1,105 @@
 package com.example.actuatorlab.health;
 
-import org.springframework.boot.actuator.health.Health;
-import org.springframework.boot.actuator.health.HealthIndicator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
 
 @Component
-public class ExternalApiHealthIndicator implements HealthIndicator {
+public class ExternalApiHealthIndicator implements ReactiveHealthIndicator {
     
     private final WebClient webClient;
+    private final String baseUrl;
+    private final Duration timeout;
+    private final CircuitBreaker circuitBreaker;
+    private final LatencyWindow latencies;
+    // Kept apart so that timeouts do not hide in, or inflate, the latency of working calls
+    private final LatencyWindow failedLatencies;
     
-    public ExternalApiHealthIndicator(WebClient.Builder webClientBuilder) {
-        // TODO 4: Initialize WebClient with base URL "https://httpbin.org"
-        // TODO 5: Uncomment the following code:
-        /*
+    public ExternalApiHealthIndicator(WebClient.Builder webClientBuilder,
+                                      @Value("${external-api.base-url:https://httpbin.org}") String baseUrl,
+                                      @Value("${external-api.timeout:5s}") Duration timeout,
+                                      @Value("${external-api.max-connections:4}") int maxConnections,
+                                      @Value("${external-api.circuit-breaker.failure-threshold:3}") int failureThreshold,
+                                      @Value("${external-api.circuit-breaker.open-duration:30s}") Duration openDuration,
+                                      @Value("${external-api.latency-window:100}") int latencyWindow) {
+        // Connections are pooled and kept alive between checks, so a healthy
+        // probe does not pay for a new TCP and TLS handshake every time
+        ConnectionProvider connections = ConnectionProvider.builder("external-api")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(timeout)
+                .maxIdleTime(Duration.ofSeconds(60))
+                .build();
+        HttpClient httpClient = HttpClient.create(connections)
+                .responseTimeout(timeout);
         this.webClient = webClientBuilder
-                .baseUrl("https://httpbin.org")
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .build();
-        */
-        
-        // Placeholder initialization - replace with actual implementation
-        this.webClient = webClientBuilder.build();
+        this.baseUrl = baseUrl;
+        this.timeout = timeout;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+        this.latencies = new LatencyWindow(latencyWindow);
+        this.failedLatencies = new LatencyWindow(latencyWindow);
     }
     
     @Override
-    public Health health() {
-        // TODO 6: Implement external API health check
-        // 1. Use webClient to make a GET request to "/status/200"
-        // 2. Set a timeout of 5 seconds
-        // 3. Return Health.up() with API details if successful
-        // 4. Return Health.down() with error details if exception occurs
-        
-        try {
-            // TODO 7: Uncomment the following code to implement the health check:
-            /*
-            String response = webClient.get()
-                    .uri("/status/200")
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofSeconds(5))
-                    .block();
-            
-            return Health.up()
-                    .withDetail("external-api", "httpbin.org")
-                    .withDetail("response", "OK")
-                    .withDetail("response-time", "Under 5 seconds")
-                    .build();
-            */
-            
-            // Placeholder return - replace with actual implementation
-            return Health.unknown()
-                    .withDetail("external-api", "httpbin.org")
-                    .withDetail("status", "Not implemented yet")
-                    .build();
-                    
-        } catch (Exception e) {
-            // TODO 8: Uncomment the following code to handle exceptions:
-            /*
-            return Health.down()
-                    .withDetail("external-api", "httpbin.org")
-                    .withDetail("error", e.getMessage())
-                    .build();
-            */
-            
-            // Placeholder return - replace with actual implementation
-            return Health.down()
-                    .withDetail("external-api", "httpbin.org")
-                    .withDetail("error", "Health check not implemented")
-                    .build();
-        }
+    public Mono<Health> health() {
+        // The breaker is asked at subscription time, so a check that is built but
+        // never subscribed to does not take the half-open probe
+        return Mono.defer(() -> {
+                    if (!circuitBreaker.tryAcquire()) {
+                        return Mono.just(withBreakerDetails(Health.down())
+                                .withDetail("error", "Circuit breaker open, next probe in "
+                                        + circuitBreaker.getRetryIn().toMillis() + " ms")
+                                .build());
+                    }
+                    long start = System.nanoTime();
+                    return webClient.get()
+                            .uri("/status/200")
+                            .retrieve()
+                            .toBodilessEntity()
+                            .timeout(timeout)
+                            .map(response -> {
+                                latencies.record(elapsedMillis(start));
+                                circuitBreaker.onSuccess();
+                                return withBreakerDetails(Health.up())
+                                        .withDetail("response", "OK")
+                                        .build();
+                            })
+                            .onErrorResume(e -> {
+                                failedLatencies.record(elapsedMillis(start));
+                                circuitBreaker.onFailure();
+                                return Mono.just(withBreakerDetails(Health.down())
+                                        .withDetail("error", String.valueOf(e.getMessage()))
+                                        .build());
+                            })
+                            // A call cancelled before it finished (e.g. by the caller's own timeout)
+                            // counts as a failure, otherwise a half-open breaker would never settle
+                            .doOnCancel(() -> {
+                                failedLatencies.record(elapsedMillis(start));
+                                circuitBreaker.onFailure();
+                            });
+                });
+    }
+    
+    private Health.Builder withBreakerDetails(Health.Builder builder) {
+        return builder
+                .withDetail("external-api", baseUrl)
+                .withDetail("circuit-breaker", circuitBreaker.getState())
+                .withDetail("consecutive-failures", circuitBreaker.getConsecutiveFailures())
+                .withDetail("response-time-ms", latencies.percentiles())
+                .withDetail("failed-response-time-ms", failedLatencies.percentiles());
+    }
+    
+    private static long elapsedMillis(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,39 @@
+package com.example.actuatorlab.health;
+
+import org.springframework.boot.actuate.health.DefaultHealthContributorRegistry;
+import org.springframework.boot.actuate.health.HealthContributor;
+import org.springframework.boot.actuate.health.HealthContributorNameFactory;
+import org.springframework.boot.actuate.health.HealthContributorRegistry;
+import org.springframework.boot.actuate.health.ReactiveHealthContributor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Registers every health contributor, blocking or reactive, ours and the
+ * auto-configured ones, in its cached form, so that /actuator/health never runs a check on the request
+ * thread. Replaces the registry Spring Boot would otherwise create.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableScheduling
+public class HealthCheckConfiguration {
+    
+    @Bean
+    public HealthContributorRegistry healthContributorRegistry(Map<String, HealthContributor> contributors,
+                                                               Map<String, ReactiveHealthContributor> reactiveContributors,
+                                                               HealthCheckRefresher refresher) {
+        Map<String, HealthContributor> cached = new LinkedHashMap<>();
+        contributors.forEach((beanName, contributor) -> {
+            String name = HealthContributorNameFactory.INSTANCE.apply(beanName);
+            cached.put(name, refresher.cache(name, contributor));
+        });
+        reactiveContributors.forEach((beanName, contributor) -> {
+            String name = HealthContributorNameFactory.INSTANCE.apply(beanName);
+            cached.put(name, refresher.cache(name, contributor));
+        });
+        return new DefaultHealthContributorRegistry(cached);
+    }
+}
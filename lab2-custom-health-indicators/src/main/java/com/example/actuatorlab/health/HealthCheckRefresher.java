@@ -0,0 +1,115 @@
+package com.example.actuatorlab.health;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.CompositeHealthContributor;
+import org.springframework.boot.actuate.health.CompositeReactiveHealthContributor;
+import org.springframework.boot.actuate.health.HealthContributor;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.ReactiveHealthContributor;
+import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every cached health check in the background, all in parallel, each
+ * bounded by its own timeout.
+ *
+ * The default timeout is health.refresh.timeout; a single indicator can be
+ * given another one with health.refresh.timeouts.&lt;name&gt;, for example
+ * health.refresh.timeouts.externalApi=7s.
+ */
+@Component
+public class HealthCheckRefresher {
+    
+    private final Environment environment;
+    private final Duration defaultTimeout;
+    private final ExecutorService executor;
+    private final List<CachedHealthIndicator> indicators = new CopyOnWriteArrayList<>();
+    
+    public HealthCheckRefresher(Environment environment,
+                                @Value("${health.refresh.timeout:2s}") Duration defaultTimeout,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.environment = environment;
+        this.defaultTimeout = defaultTimeout;
+        this.executor = virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : platformExecutor();
+    }
+    
+    private static ExecutorService platformExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "health-check-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Replaces every health indicator in the contributor, including the members
+     * of composites, with a cached one that is refreshed by this component.
+     */
+    public HealthContributor cache(String name, HealthContributor contributor) {
+        if (contributor instanceof HealthIndicator indicator) {
+            return register(new CachedHealthIndicator(name, indicator, timeoutFor(name)));
+        }
+        if (contributor instanceof CompositeHealthContributor composite) {
+            Map<String, HealthContributor> members = new LinkedHashMap<>();
+            composite.forEach(member -> members.put(member.getName(),
+                    cache(name + "/" + member.getName(), member.getContributor())));
+            return CompositeHealthContributor.fromMap(members);
+        }
+        return contributor;
+    }
+    
+    /**
+     * Reactive variant of {@link #cache(String, HealthContributor)}; the result
+     * is a regular contributor so both kinds can share one registry.
+     */
+    public HealthContributor cache(String name, ReactiveHealthContributor contributor) {
+        if (contributor instanceof ReactiveHealthIndicator indicator) {
+            return register(new CachedHealthIndicator(name, indicator, timeoutFor(name)));
+        }
+        if (contributor instanceof CompositeReactiveHealthContributor composite) {
+            Map<String, HealthContributor> members = new LinkedHashMap<>();
+            composite.forEach(member -> members.put(member.getName(),
+                    cache(name + "/" + member.getName(), member.getContributor())));
+            return CompositeHealthContributor.fromMap(members);
+        }
+        throw new IllegalArgumentException("Unsupported reactive health contributor: " + name);
+    }
+    
+    private Duration timeoutFor(String name) {
+        return environment.getProperty("health.refresh.timeouts." + name, Duration.class, defaultTimeout);
+    }
+    
+    private CachedHealthIndicator register(CachedHealthIndicator indicator) {
+        indicators.add(indicator);
+        return indicator;
+    }
+    
+    @Scheduled(fixedDelayString = "${health.refresh.interval:5000}")
+    public void refreshAll() {
+        CompletableFuture<?>[] checks = new CompletableFuture<?>[indicators.size()];
+        for (int i = 0; i < checks.length; i++) {
+            checks[i] = indicators.get(i).refresh(executor);
+        }
+        // every check is bounded by its timeout, so this never waits longer than the slowest one
+        CompletableFuture.allOf(checks).join();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.actuatorlab.health;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rolling window over the last N latency samples, in milliseconds.
+ *
+ * Recording overwrites the oldest sample; percentiles are computed from a
+ * sorted copy when the window is read.
+ */
+public class LatencyWindow {
+    
+    private final AtomicLongArray samples;
+    private final AtomicLong recorded = new AtomicLong();
+    
+    public LatencyWindow(int size) {
+        this.samples = new AtomicLongArray(Math.max(1, size));
+    }
+    
+    public void record(long millis) {
+        long position = recorded.getAndIncrement();
+        samples.set((int) (position % samples.length()), millis);
+    }
+    
+    public Map<String, Object> percentiles() {
+        int count = (int) Math.min(recorded.get(), samples.length());
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("samples", count);
+        if (count == 0) {
+            return values;
+        }
+        long[] sorted = new long[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        values.put("p50", valueAt(sorted, 50));
+        values.put("p90", valueAt(sorted, 90));
+        values.put("p99", valueAt(sorted, 99));
+        values.put("max", sorted[count - 1]);
+        return values;
+    }
+    
+    private static long valueAt(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.actuatorlab.health;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts requests and errors over a sliding time window.
+ *
+ * The window is a ring of time buckets, each backed by a single LongAdder, so
+ * concurrent increments land on separate cells and never contend. Requests are
+ * kept in the high 32 bits and errors in the low 32 bits of the same adder, so
+ * one sum() per bucket reads both. Buckets older than the window are replaced
+ * as time moves on.
+ *
+ * A failed request is recorded with one add of its request and its error
+ * together, so no read can see the error without its request and the error
+ * rate never exceeds 1. Reads are otherwise not atomic: sum() reads the cells
+ * one by one, so requests racing with it may or may not be counted. Once
+ * recording settles the counts are exact.
+ */
+public class SlidingWindowCounter {
+    
+    private static final long REQUEST = 1L << 32;
+    private static final long ERROR = 1;
+    private static final long ERROR_MASK = REQUEST - 1;
+    
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final Duration window;
+    
+    public SlidingWindowCounter(Duration window, int bucketCount) {
+        int count = Math.max(1, bucketCount);
+        this.bucketMillis = Math.max(1, window.toMillis() / count);
+        this.buckets = new AtomicReferenceArray<>(count);
+        this.window = Duration.ofMillis(bucketMillis * count);
+    }
+    
+    public void recordRequest() {
+        currentBucket().counts.add(REQUEST);
+    }
+    
+    /**
+     * Records a request that failed: one request and one error in a single add.
+     */
+    public void recordFailure() {
+        currentBucket().counts.add(REQUEST | ERROR);
+    }
+    
+    private Bucket currentBucket() {
+        long slot = System.currentTimeMillis() / bucketMillis;
+        int index = (int) (slot % buckets.length());
+        Bucket bucket = buckets.get(index);
+        while (bucket == null || bucket.slot != slot) {
+            if (bucket != null && bucket.slot > slot) {
+                // the clock moved backwards or another thread already rotated; use what is there
+                return bucket;
+            }
+            Bucket fresh = new Bucket(slot);
+            if (buckets.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+            bucket = buckets.get(index);
+        }
+        return bucket;
+    }
+    
+    /**
+     * Sums the buckets that still fall inside the window.
+     */
+    public Counts snapshot() {
+        long currentSlot = System.currentTimeMillis() / bucketMillis;
+        long requests = 0;
+        long errors = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && currentSlot - bucket.slot < buckets.length()) {
+                long packed = bucket.counts.sum();
+                requests += packed >>> 32;
+                errors += packed & ERROR_MASK;
+            }
+        }
+        return new Counts(requests, errors);
+    }
+    
+    public Duration getWindow() {
+        return window;
+    }
+    
+    private static final class Bucket {
+        
+        private final long slot;
+        private final LongAdder counts = new LongAdder();
+        
+        Bucket(long slot) {
+            this.slot = slot;
+        }
+    }
+    
+    public record Counts(long requests, long errors) {
+        
+        public double errorRate() {
+            return requests > 0 ? (double) errors / requests : 0.0;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.actuatorlab.health;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A failed check must always replace the snapshot, so the indicator never
+ * keeps serving an earlier UP for a dependency that is failing.
+ */
+class CachedHealthIndicatorTest {
+    
+    private static final Executor DIRECT = Runnable::run;
+    
+    private volatile Mono<Health> next = Mono.just(Health.up().build());
+    
+    private final CachedHealthIndicator indicator =
+            new CachedHealthIndicator("test", (ReactiveHealthIndicator) () -> next, Duration.ofSeconds(1));
+    
+    @Test
+    void exceptionWithoutAMessageIsReportedDown() throws Exception {
+        check();
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+        
+        next = Mono.error(new IllegalStateException());
+        check();
+        
+        Health health = indicator.health();
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(health.getDetails().get("error")).asString().contains("IllegalStateException");
+    }
+    
+    @Test
+    void checkThatCompletesEmptyIsReportedDown() throws Exception {
+        check();
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+        
+        next = Mono.empty();
+        check();
+        
+        Health health = indicator.health();
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(health.getDetails()).containsEntry("error", "Health check completed without a result");
+    }
+    
+    private void check() throws Exception {
+        indicator.refresh(DIRECT).get(5, TimeUnit.SECONDS);
+    }
+}
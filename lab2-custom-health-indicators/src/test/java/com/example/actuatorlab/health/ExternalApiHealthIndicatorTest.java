@@ -0,0 +1,159 @@
+package com.example.actuatorlab.health;
+
+import com.sun.net.httpserver.HttpServer;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.assertj.core.api.MapAssert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the indicator against a local stub server whose status code and
+ * response delay can be changed between checks.
+ */
+class ExternalApiHealthIndicatorTest {
+    
+    private static final Duration TIMEOUT = Duration.ofSeconds(1);
+    private static final Duration OPEN_DURATION = Duration.ofMillis(200);
+    
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile long delayMillis;
+    
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/status/200", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        // a thread per request, so a slow response does not hold up the next check
+        server.setExecutor(task -> new Thread(task).start());
+        server.start();
+    }
+    
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+    
+    private ExternalApiHealthIndicator indicator(int failureThreshold) {
+        return new ExternalApiHealthIndicator(WebClient.builder(),
+                "http://127.0.0.1:" + server.getAddress().getPort(), TIMEOUT, 2,
+                failureThreshold, OPEN_DURATION, 10);
+    }
+    
+    private static Health check(ExternalApiHealthIndicator indicator) {
+        return indicator.health().block(Duration.ofSeconds(5));
+    }
+    
+    private static MapAssert<Object, Object> assertLatency(Health health, String detail) {
+        return assertThat(health.getDetails().get(detail)).asInstanceOf(InstanceOfAssertFactories.MAP);
+    }
+    
+    @Test
+    void upWhenTheApiAnswers() {
+        Health health = check(indicator(3));
+        
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry("response", "OK")
+                .containsEntry("circuit-breaker", CircuitBreaker.State.CLOSED)
+                .containsKey("response-time-ms");
+    }
+    
+    @Test
+    void downWhenTheApiFails() {
+        status = 500;
+        
+        Health health = check(indicator(3));
+        
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(health.getDetails()).containsEntry("consecutive-failures", 1);
+        assertThat(health.getDetails().get("error").toString()).contains("500");
+        assertLatency(health, "response-time-ms").containsEntry("samples", 0);
+        assertLatency(health, "failed-response-time-ms").containsEntry("samples", 1);
+    }
+    
+    @Test
+    void downWhenTheApiIsSlowerThanTheTimeout() {
+        delayMillis = 3_000;
+        
+        long start = System.nanoTime();
+        Health health = check(indicator(3));
+        
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(2_500));
+        // the timed-out call is reported with the time it took to give up
+        assertLatency(health, "failed-response-time-ms")
+                .extractingByKey("max", InstanceOfAssertFactories.LONG)
+                .isGreaterThanOrEqualTo(TIMEOUT.toMillis());
+    }
+    
+    @Test
+    void breakerOpensThenProbesHalfOpenAndCloses() throws InterruptedException {
+        ExternalApiHealthIndicator indicator = indicator(2);
+        status = 500;
+        check(indicator);
+        Health opened = check(indicator);
+        assertThat(opened.getDetails()).containsEntry("circuit-breaker", CircuitBreaker.State.OPEN);
+        
+        // while open, checks fail fast without calling the API
+        int before = requests.get();
+        Health refused = check(indicator);
+        assertThat(refused.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(refused.getDetails().get("error").toString()).startsWith("Circuit breaker open");
+        assertThat(requests.get()).isEqualTo(before);
+        
+        // after the open duration a single probe goes through and closes the breaker
+        status = 200;
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        Health probe = check(indicator);
+        assertThat(probe.getStatus()).isEqualTo(Status.UP);
+        assertThat(probe.getDetails()).containsEntry("circuit-breaker", CircuitBreaker.State.CLOSED);
+        assertThat(requests.get()).isEqualTo(before + 1);
+    }
+    
+    @Test
+    void unsubscribedOrCancelledProbeDoesNotLeaveBreakerHalfOpen() throws InterruptedException {
+        ExternalApiHealthIndicator indicator = indicator(1);
+        status = 500;
+        check(indicator);
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        
+        // a check that is never subscribed to takes nothing from the breaker
+        indicator.health();
+        
+        // a probe cancelled before the slow API answers counts as a failure and reopens the breaker
+        status = 200;
+        delayMillis = 3_000;
+        Disposable probe = indicator.health().subscribe();
+        Thread.sleep(200);
+        probe.dispose();
+        Health reopened = check(indicator);
+        assertThat(reopened.getDetails()).containsEntry("circuit-breaker", CircuitBreaker.State.OPEN);
+        assertLatency(reopened, "failed-response-time-ms").containsEntry("samples", 2);
+        
+        // and the next probe gets through again
+        delayMillis = 0;
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        assertThat(check(indicator).getStatus()).isEqualTo(Status.UP);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.actuatorlab.health;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowCounterTest {
+    
+    private final SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofMinutes(1), 60);
+    
+    @Test
+    void countsRequestsAndErrorsInTheWindow() {
+        for (int i = 0; i < 8; i++) {
+            counter.recordRequest();
+        }
+        counter.recordFailure();
+        counter.recordFailure();
+        
+        SlidingWindowCounter.Counts counts = counter.snapshot();
+        assertThat(counts.requests()).isEqualTo(10);
+        assertThat(counts.errors()).isEqualTo(2);
+        assertThat(counts.errorRate()).isEqualTo(0.2);
+    }
+    
+    @Test
+    void snapshotsTakenWhileFailuresAreRecordedNeverSeeMoreErrorsThanRequests() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread writer = new Thread(() -> {
+                while (running.get()) {
+                    counter.recordFailure();
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        try {
+            for (int i = 0; i < 10_000; i++) {
+                SlidingWindowCounter.Counts counts = counter.snapshot();
+                assertThat(counts.errors()).isLessThanOrEqualTo(counts.requests());
+            }
+        } finally {
+            running.set(false);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+        SlidingWindowCounter.Counts settled = counter.snapshot();
+        assertThat(settled.errors()).isEqualTo(settled.requests());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.actuatorlab.endpoints;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@Endpoint(id = "appmanagement")
+public class ApplicationManagementEndpoint {
+    
+    private final Map<String, String> configuration = new ConcurrentHashMap<>();
+    private volatile boolean maintenanceMode = false;
+    
+    public ApplicationManagementEndpoint() {
+        configuration.put("cache.ttl", "3600");
+        configuration.put("max.connections", "100");
+        configuration.put("timeout", "30");
+    }
+    
+    @ReadOperation
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("maintenanceMode", maintenanceMode);
+        status.put("configuration", new HashMap<>(configuration));
+        status.put("timestamp", System.currentTimeMillis());
+        return status;
+    }
+    
+    /**
+     * Single write operation for the endpoint (actuator allows only one per path):
+     * {"enabled": true} toggles maintenance mode, {"key": ..., "value": ...}
+     * updates a configuration entry.
+     */
+    @WriteOperation
+    public void update(@Nullable Boolean enabled, @Nullable String key, @Nullable String value) {
+        if (enabled != null) {
+            setMaintenanceMode(enabled);
+        }
+        updateConfiguration(key, value);
+    }
+    
+    public void setMaintenanceMode(boolean enabled) {
+        this.maintenanceMode = enabled;
+    }
+    
+    public void updateConfiguration(String key, String value) {
+        if (key != null && value != null) {
+            configuration.put(key, value);
+        }
+    }
+}
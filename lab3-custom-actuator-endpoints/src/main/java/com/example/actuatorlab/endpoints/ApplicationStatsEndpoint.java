@@ -1,53 +1,80 @@
 package com.example.actuatorlab.endpoints;
 
+import com.example.actuatorlab.metrics.JvmStatsSampler;
+import com.example.actuatorlab.state.StateJournal;
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
 import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Application and JVM statistics.
+ *
+ * A background task samples the JVM every app.stats.sample-interval and
+ * publishes the result as one immutable map; reads just return the latest
+ * map, so they neither allocate nor race with the sampler.
+ */
 @Component
 @Endpoint(id = "appstats")
 public class ApplicationStatsEndpoint {
     
-    // TODO 1: Add a map to store application statistics
-    // TODO 2: Uncomment the following code:
-    /*
-    private final Map<String, Object> stats = new HashMap<>();
+    private final Map<String, Object> info = new LinkedHashMap<>();
+    private final JvmStatsSampler jvm = new JvmStatsSampler();
+    private final long startNanos = System.nanoTime();
+    private volatile Map<String, Object> stats;
     
-    public ApplicationStatsEndpoint() {
+    public ApplicationStatsEndpoint(StateJournal journal) {
         // Initialize with some default stats
-        stats.put("startTime", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        stats.put("version", "1.0.0");
-        stats.put("environment", "development");
+        String now = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        info.put("startTime", now);
+        info.put("version", "1.0.0");
+        info.put("environment", "development");
+        
+        // Start history survives restarts
+        String previousStart = journal.get("stats.last-start-time");
+        String startCount = journal.get("stats.start-count");
+        long starts = (startCount != null ? Long.parseLong(startCount) : 0) + 1;
+        journal.put("stats.start-count", Long.toString(starts));
+        journal.put("stats.last-start-time", now);
+        if (journal.get("stats.first-start-time") == null) {
+            journal.put("stats.first-start-time", now);
+        }
+        info.put("startCount", starts);
+        info.put("firstStartTime", journal.get("stats.first-start-time"));
+        if (previousStart != null) {
+            info.put("previousStartTime", previousStart);
+        }
+        publishSample();
+    }
+    
+    @Scheduled(fixedRateString = "${app.stats.sample-interval:1000}")
+    public void sampleStats() {
+        publishSample();
     }
-    */
     
-    // Placeholder field - replace with actual implementation
-    private final Map<String, Object> stats = new HashMap<>();
+    private void publishSample() {
+        Duration uptime = Duration.ofNanos(System.nanoTime() - startNanos);
+        Map<String, Object> next = new LinkedHashMap<>(info);
+        next.put("lastUpdated", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        // time since this application started, and since the JVM started
+        next.put("uptime", uptime.toString());
+        next.put("uptimeMs", uptime.toMillis());
+        next.put("jvmUptimeMs", ManagementFactory.getRuntimeMXBean().getUptime());
+        next.putAll(jvm.sample());
+        stats = Collections.unmodifiableMap(next);
+    }
     
     @ReadOperation
     public Map<String, Object> getStats() {
-        // TODO 3: Implement the getStats method
-        // 1. Add current timestamp to stats
-        // 2. Add uptime to stats
-        // 3. Return the stats map
-        
-        // TODO 4: Uncomment the following code to implement the method:
-        /*
-        // Add current timestamp
-        stats.put("lastUpdated", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        stats.put("uptime", System.currentTimeMillis());
-        
+        // Timestamp and uptime are filled in by sampleStats
         return stats;
-        */
-        
-        // Placeholder return - replace with actual implementation
-        Map<String, Object> placeholderStats = new HashMap<>();
-        placeholderStats.put("status", "Application stats not implemented yet");
-        return placeholderStats;
     }
-} 
\ No newline at end of file
+}
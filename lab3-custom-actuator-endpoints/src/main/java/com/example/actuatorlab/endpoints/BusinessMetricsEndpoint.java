@@ -1,91 +1,115 @@
 package com.example.actuatorlab.endpoints;
 
+import com.example.actuatorlab.metrics.OrderTimeSeries;
+import com.example.actuatorlab.metrics.StripedOrderCounter;
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
 import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
 import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Component
 @Endpoint(id = "businessmetrics")
 public class BusinessMetricsEndpoint {
     
-    // TODO 11: Add counters to track business metrics
-    // TODO 12: Uncomment the following code:
-    /*
-    private final AtomicLong totalOrders = new AtomicLong(0);
-    private final AtomicLong totalRevenue = new AtomicLong(0);
+    // Orders and revenue are updated on every request, so they live in one
+    // striped counter instead of two shared AtomicLongs
+    private final StripedOrderCounter orders = new StripedOrderCounter();
     private final AtomicLong activeUsers = new AtomicLong(0);
-    */
+    private final OrderTimeSeries history = new OrderTimeSeries();
     
-    // Placeholder counters - replace with actual implementation
-    private final AtomicLong totalOrders = new AtomicLong(0);
-    private final AtomicLong totalRevenue = new AtomicLong(0);
-    private final AtomicLong activeUsers = new AtomicLong(0);
+    public void recordOrder(long amount) {
+        orders.recordOrder(amount);
+        history.recordAmount(amount);
+    }
     
-    // TODO 13: Add methods to update metrics
-    // TODO 14: Uncomment the following methods:
-    /*
     public void incrementOrders() {
-        totalOrders.incrementAndGet();
+        orders.addOrders(1);
     }
     
     public void addRevenue(long amount) {
-        totalRevenue.addAndGet(amount);
+        orders.addRevenue(amount);
     }
     
     public void setActiveUsers(long count) {
         activeUsers.set(count);
     }
-    */
     
     @ReadOperation
     public Map<String, Object> getAllMetrics() {
-        // TODO 15: Implement the getAllMetrics method
-        // 1. Create a map with all metrics
-        // 2. Calculate average order value
-        // 3. Return the metrics map
-        
-        // TODO 16: Uncomment the following code:
-        /*
+        StripedOrderCounter.Totals totals = orders.snapshot();
         Map<String, Object> metrics = new HashMap<>();
-        metrics.put("totalOrders", totalOrders.get());
-        metrics.put("totalRevenue", totalRevenue.get());
+        metrics.put("totalOrders", totals.orders());
+        metrics.put("totalRevenue", totals.revenue());
         metrics.put("activeUsers", activeUsers.get());
-        metrics.put("averageOrderValue", 
-            totalOrders.get() > 0 ? (double) totalRevenue.get() / totalOrders.get() : 0.0);
+        metrics.put("averageOrderValue", totals.averageOrderValue());
         return metrics;
-        */
-        
-        // Placeholder return - replace with actual implementation
-        Map<String, Object> placeholderMetrics = new HashMap<>();
-        placeholderMetrics.put("status", "Business metrics not implemented yet");
-        return placeholderMetrics;
     }
     
     @ReadOperation
     public Object getMetric(@Selector String metricName) {
-        // TODO 17: Implement the getMetric method
-        // 1. Use switch expression to handle different metric names
-        // 2. Return appropriate metric value based on metricName
-        // 3. Handle unknown metrics with error message
-        
-        // TODO 18: Uncomment the following code:
-        /*
         return switch (metricName.toLowerCase()) {
-            case "orders" -> totalOrders.get();
-            case "revenue" -> totalRevenue.get();
+            case "orders" -> orders.snapshot().orders();
+            case "revenue" -> orders.snapshot().revenue();
             case "users" -> activeUsers.get();
-            case "average" -> totalOrders.get() > 0 ? 
-                (double) totalRevenue.get() / totalOrders.get() : 0.0;
+            case "average" -> orders.snapshot().averageOrderValue();
+            case "history" -> Map.of(
+                "secondSlots", OrderTimeSeries.SECONDS,
+                "minuteSlots", OrderTimeSeries.MINUTES,
+                "memoryBytes", history.getMemoryBytes());
             default -> Map.of("error", "Unknown metric: " + metricName);
         };
-        */
-        
-        // Placeholder return - replace with actual implementation
-        return Map.of("error", "Metric retrieval not implemented yet");
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Windowed queries over the retained history, e.g. /businessmetrics/orders/5m.
+     * Windows up to 1h have one-second resolution, up to 24h one-minute resolution.
+     */
+    @ReadOperation
+    public Object getWindowedMetric(@Selector String metricName, @Selector String window) {
+        Duration duration;
+        OrderTimeSeries.Window totals;
+        try {
+            duration = DurationStyle.detectAndParse(window);
+            totals = history.window(duration);
+        } catch (IllegalArgumentException e) {
+            return Map.of("error", e.getMessage());
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("window", totals.getDuration().toString());
+        result.put("resolution", totals.getResolution().toString());
+        switch (metricName.toLowerCase()) {
+            case "orders" -> {
+                result.put("orders", totals.getOrders());
+                result.put("ordersPerSecond", totals.getOrdersPerSecond());
+            }
+            case "revenue" -> {
+                result.put("revenue", totals.getRevenue());
+                result.put("revenuePerSecond", totals.getRevenuePerSecond());
+            }
+            case "average" -> result.put("averageOrderValue", totals.getAverageOrderValue());
+            case "amounts" -> {
+                result.put("count", totals.getAmountCount());
+                result.put("p50", totals.getAmountAtPercentile(50));
+                result.put("p90", totals.getAmountAtPercentile(90));
+                result.put("p99", totals.getAmountAtPercentile(99));
+            }
+            default -> {
+                return Map.of("error", "Unknown metric: " + metricName);
+            }
+        }
+        return result;
+    }
+    
+    @Scheduled(fixedRate = 1000)
+    public void sampleHistory() {
+        history.sample(orders.snapshot(), System.currentTimeMillis());
+    }
+}
@@ -1,60 +1,87 @@
 package com.example.actuatorlab.endpoints;
 
+import com.example.actuatorlab.featureflags.FeatureFlagRegistry;
+import com.example.actuatorlab.featureflags.FlagDefinition;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
 import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
 import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @Component
 @Endpoint(id = "featureflags")
 public class FeatureFlagsEndpoint {
     
-    // TODO 5: Add a map to store feature flags
-    // TODO 6: Uncomment the following code:
-    /*
-    private final Map<String, Boolean> featureFlags = new HashMap<>();
+    // Flags are kept in FeatureFlagRegistry, which application code can also
+    // inject to check flags on the request path
+    private final FeatureFlagRegistry featureFlags;
     
-    public FeatureFlagsEndpoint() {
-        // Initialize with some default feature flags
-        featureFlags.put("new-ui", false);
-        featureFlags.put("beta-features", true);
-        featureFlags.put("debug-mode", false);
+    public FeatureFlagsEndpoint(FeatureFlagRegistry featureFlags) {
+        this.featureFlags = featureFlags;
     }
-    */
-    
-    // Placeholder field - replace with actual implementation
-    private final Map<String, Boolean> featureFlags = new HashMap<>();
     
     @ReadOperation
     public Map<String, Boolean> getFeatureFlags() {
-        // TODO 7: Implement the getFeatureFlags method
-        // Return a copy of the feature flags map
-        
-        // TODO 8: Uncomment the following code:
-        /*
-        return new HashMap<>(featureFlags);
-        */
-        
-        // Placeholder return - replace with actual implementation
-        Map<String, Boolean> placeholderFlags = new HashMap<>();
-        placeholderFlags.put("status", false);
-        return placeholderFlags;
+        return featureFlags.getFlags();
+    }
+    
+    @ReadOperation
+    public Map<String, Object> getFeatureFlag(@Selector String name) {
+        FlagDefinition definition = featureFlags.getDefinition(name);
+        if (definition == null) {
+            return Map.of("error", "Unknown feature flag: " + name);
+        }
+        Map<String, Object> flag = new LinkedHashMap<>();
+        flag.put("enabled", definition.enabled());
+        flag.put("rolloutPercentage", definition.rolloutPercentage());
+        flag.put("allow", definition.allow());
+        flag.put("deny", definition.deny());
+        return flag;
+    }
+    
+    @ReadOperation
+    public Map<String, Object> evaluateFeatureFlag(@Selector String name, @Selector String userId) {
+        return Map.of("name", name, "user", userId, "enabled", featureFlags.isEnabledFor(name, userId));
     }
     
     @WriteOperation
-    public void updateFeatureFlag(String name, Boolean enabled) {
-        // TODO 9: Implement the updateFeatureFlag method
-        // 1. Validate that name and enabled are not null
-        // 2. Update the feature flag in the map
-        
-        // TODO 10: Uncomment the following code:
-        /*
-        if (name != null && enabled != null) {
-            featureFlags.put(name, enabled);
+    public void updateFeatureFlag(String name, @Nullable Boolean enabled, @Nullable Integer rolloutPercentage,
+                                  @Nullable String allow, @Nullable String deny) {
+        if (rolloutPercentage == null && allow == null && deny == null) {
+            if (enabled != null) {
+                featureFlags.set(name, enabled);
+            }
+            return;
+        }
+        // Targeting fields that are not sent keep their current value; the merge
+        // is redone if another update changes the flag in between
+        List<String> allowIds = allow != null ? userIds(allow) : null;
+        List<String> denyIds = deny != null ? userIds(deny) : null;
+        try {
+            featureFlags.update(name, current -> new FlagDefinition(
+                    enabled != null ? enabled : current.enabled(),
+                    rolloutPercentage != null ? rolloutPercentage : current.rolloutPercentage(),
+                    allowIds != null ? allowIds : current.allow(),
+                    denyIds != null ? denyIds : current.deny()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
         }
-        */
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Actuator write operations take plain values, so user lists are sent comma-separated.
+     */
+    private static List<String> userIds(String list) {
+        return Arrays.stream(list.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.actuatorlab.featureflags;
+
+/**
+ * Handle to one feature flag, obtained once from {@link FeatureFlagRegistry#flag(String)}
+ * and kept in a field. Checking it is an array read on the registry's current
+ * snapshot: no hashing and no allocation.
+ */
+public final class FeatureFlag {
+    
+    private final FeatureFlagRegistry registry;
+    private final String name;
+    private final int index;
+    
+    FeatureFlag(FeatureFlagRegistry registry, String name, int index) {
+        this.registry = registry;
+        this.name = name;
+        this.index = index;
+    }
+    
+    /**
+     * Master switch of the flag, for checks that are not tied to a user.
+     */
+    public boolean isEnabled() {
+        return registry.isEnabled(index);
+    }
+    
+    /**
+     * Evaluates rollout and allow/deny targeting for the given user.
+     */
+    public boolean isEnabledFor(String userId) {
+        return registry.isEnabledFor(index, UserKeys.of(userId));
+    }
+    
+    public boolean isEnabledFor(long userId) {
+        return registry.isEnabledFor(index, UserKeys.of(userId));
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    int getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.actuatorlab.featureflags;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-process feature flag store.
+ *
+ * All flags live in an immutable snapshot that is replaced as a whole on every
+ * write (copy-on-write), so readers never lock and never see a half-applied
+ * update. Each flag has a fixed index into the snapshot; {@link FeatureFlag}
+ * handles keep that index, which makes a check on the request path O(1).
+ *
+ * A flag's {@link FlagDefinition} is compiled into a {@link FlagRule} when it
+ * is written, so per-user checks only walk the precompiled rule.
+ *
+ * Listeners are told about every change after it is visible to readers,
+ * which is how {@link FeatureFlagStore} persists flags.
+ */
+@Component
+public final class FeatureFlagRegistry {
+    
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(Snapshot.EMPTY);
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    
+    public FeatureFlagRegistry() {
+        // Initialize with some default feature flags
+        set("new-ui", false);
+        set("beta-features", true);
+        set("debug-mode", false);
+    }
+    
+    /**
+     * Returns the handle for a flag, registering it as disabled if it does not exist yet.
+     */
+    public FeatureFlag flag(String name) {
+        FeatureFlag handle = current.get().handles.get(name);
+        if (handle != null) {
+            return handle;
+        }
+        return apply(name, definition -> definition).handles.get(name);
+    }
+    
+    public boolean isEnabled(String name) {
+        FeatureFlag handle = current.get().handles.get(name);
+        return handle != null && isEnabled(handle.getIndex());
+    }
+    
+    public boolean isEnabledFor(String name, String userId) {
+        FeatureFlag handle = current.get().handles.get(name);
+        return handle != null && isEnabledFor(handle.getIndex(), UserKeys.of(userId));
+    }
+    
+    boolean isEnabled(int index) {
+        FlagRule[] rules = current.get().rules;
+        return index < rules.length && rules[index].isEnabled();
+    }
+    
+    boolean isEnabledFor(int index, long userKey) {
+        FlagRule[] rules = current.get().rules;
+        return index < rules.length && rules[index].evaluate(userKey);
+    }
+    
+    /**
+     * Switches a flag on or off, keeping its rollout and targeting lists.
+     */
+    public void set(String name, boolean enabled) {
+        apply(name, definition -> definition.withEnabled(enabled));
+    }
+    
+    public void define(String name, FlagDefinition definition) {
+        apply(name, previous -> definition);
+    }
+    
+    /**
+     * Atomically replaces a flag's definition with the result of the change,
+     * which is given the current definition (disabled for a new flag). If a
+     * concurrent write gets in first the change is applied again to the newer
+     * definition, so it must not have side effects. Returns the new definition.
+     */
+    public FlagDefinition update(String name, UnaryOperator<FlagDefinition> change) {
+        Snapshot snapshot = apply(name, change);
+        return snapshot.definitions[snapshot.handles.get(name).getIndex()];
+    }
+    
+    /**
+     * Registers a callback invoked with the name of every flag that is added
+     * or changed. Concurrent changes may be reported out of order, so
+     * listeners should read the current definition rather than cache one.
+     */
+    public void addListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+    
+    public FlagDefinition getDefinition(String name) {
+        Snapshot snapshot = current.get();
+        FeatureFlag handle = snapshot.handles.get(name);
+        return handle != null ? snapshot.definitions[handle.getIndex()] : null;
+    }
+    
+    /**
+     * Current flag values in registration order.
+     */
+    public Map<String, Boolean> getFlags() {
+        Snapshot snapshot = current.get();
+        Map<String, Boolean> flags = new LinkedHashMap<>();
+        for (int i = 0; i < snapshot.names.length; i++) {
+            flags.put(snapshot.names[i], snapshot.definitions[i].enabled());
+        }
+        return flags;
+    }
+    
+    public Map<String, FlagDefinition> getDefinitions() {
+        Snapshot snapshot = current.get();
+        Map<String, FlagDefinition> definitions = new LinkedHashMap<>();
+        for (int i = 0; i < snapshot.names.length; i++) {
+            definitions.put(snapshot.names[i], snapshot.definitions[i]);
+        }
+        return definitions;
+    }
+    
+    private Snapshot apply(String name, UnaryOperator<FlagDefinition> change) {
+        while (true) {
+            Snapshot snapshot = current.get();
+            Snapshot next = snapshot.with(this, name, change);
+            if (next == snapshot) {
+                return next;
+            }
+            if (current.compareAndSet(snapshot, next)) {
+                listeners.forEach(listener -> listener.accept(name));
+                return next;
+            }
+        }
+    }
+    
+    private static final class Snapshot {
+        
+        static final Snapshot EMPTY = new Snapshot(new String[0], new FlagDefinition[0], new FlagRule[0], Map.of());
+        
+        final String[] names;
+        final FlagDefinition[] definitions;
+        final FlagRule[] rules;
+        final Map<String, FeatureFlag> handles;
+        
+        Snapshot(String[] names, FlagDefinition[] definitions, FlagRule[] rules, Map<String, FeatureFlag> handles) {
+            this.names = names;
+            this.definitions = definitions;
+            this.rules = rules;
+            this.handles = handles;
+        }
+        
+        /**
+         * Copy with the change applied to the flag, registering the flag as
+         * disabled first if needed. Existing flags keep their index.
+         */
+        Snapshot with(FeatureFlagRegistry registry, String name, UnaryOperator<FlagDefinition> change) {
+            FeatureFlag handle = handles.get(name);
+            if (handle != null) {
+                int index = handle.getIndex();
+                FlagDefinition definition = change.apply(definitions[index]);
+                if (definition.equals(definitions[index])) {
+                    return this;
+                }
+                FlagDefinition[] nextDefinitions = definitions.clone();
+                FlagRule[] nextRules = rules.clone();
+                nextDefinitions[index] = definition;
+                nextRules[index] = FlagRule.compile(name, definition);
+                return new Snapshot(names, nextDefinitions, nextRules, handles);
+            }
+            int index = names.length;
+            FlagDefinition definition = change.apply(FlagDefinition.of(false));
+            String[] nextNames = Arrays.copyOf(names, index + 1);
+            FlagDefinition[] nextDefinitions = Arrays.copyOf(definitions, index + 1);
+            FlagRule[] nextRules = Arrays.copyOf(rules, index + 1);
+            nextNames[index] = name;
+            nextDefinitions[index] = definition;
+            nextRules[index] = FlagRule.compile(name, definition);
+            Map<String, FeatureFlag> nextHandles = new HashMap<>(handles);
+            nextHandles.put(name, new FeatureFlag(registry, name, index));
+            return new Snapshot(nextNames, nextDefinitions, nextRules, Map.copyOf(nextHandles));
+        }
+    }
+}
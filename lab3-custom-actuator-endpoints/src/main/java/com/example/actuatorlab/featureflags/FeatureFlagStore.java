@@ -0,0 +1,59 @@
+package com.example.actuatorlab.featureflags;
+
+import com.example.actuatorlab.state.StateJournal;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps feature flags across restarts.
+ *
+ * Flags saved in the {@link StateJournal} are loaded over the registry's
+ * defaults on startup, and from then on every change made through the
+ * registry is written back.
+ */
+@Component
+public class FeatureFlagStore {
+    
+    private static final String PREFIX = "flag.";
+    
+    private final FeatureFlagRegistry registry;
+    private final StateJournal journal;
+    
+    public FeatureFlagStore(FeatureFlagRegistry registry, StateJournal journal) {
+        this.registry = registry;
+        this.journal = journal;
+        for (Map.Entry<String, String> entry : journal.entries(PREFIX).entrySet()) {
+            registry.define(entry.getKey(), decode(entry.getValue()));
+        }
+        registry.addListener(this::save);
+    }
+    
+    private void save(String name) {
+        // the definition is read when the record is appended, so the last record for a flag holds its newest state
+        journal.put(PREFIX + name, () -> {
+            FlagDefinition definition = registry.getDefinition(name);
+            return definition != null ? encode(definition) : null;
+        });
+    }
+    
+    /**
+     * One line each for enabled, rollout percentage, allow list and deny list.
+     */
+    static String encode(FlagDefinition definition) {
+        return definition.enabled() + "\n" + definition.rolloutPercentage() + "\n"
+                + String.join(",", definition.allow()) + "\n" + String.join(",", definition.deny());
+    }
+    
+    static FlagDefinition decode(String value) {
+        String[] lines = value.split("\n", -1);
+        return new FlagDefinition(Boolean.parseBoolean(lines[0]), Integer.parseInt(lines[1]),
+                split(lines[2]), split(lines[3]));
+    }
+    
+    private static List<String> split(String users) {
+        return users.isEmpty() ? List.of() : Arrays.asList(users.split(","));
+    }
+}
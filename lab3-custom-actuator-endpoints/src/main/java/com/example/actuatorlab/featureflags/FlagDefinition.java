@@ -0,0 +1,31 @@
+package com.example.actuatorlab.featureflags;
+
+import java.util.List;
+
+/**
+ * What a feature flag was configured with: the master switch, the share of
+ * users it is rolled out to, and users always included or excluded.
+ * Compiled into a {@link FlagRule} whenever it changes.
+ */
+public record FlagDefinition(boolean enabled, int rolloutPercentage, List<String> allow, List<String> deny) {
+    
+    public FlagDefinition {
+        if (rolloutPercentage < 0 || rolloutPercentage > 100) {
+            throw new IllegalArgumentException("Rollout percentage must be between 0 and 100: " + rolloutPercentage);
+        }
+        allow = allow != null ? List.copyOf(allow) : List.of();
+        deny = deny != null ? List.copyOf(deny) : List.of();
+    }
+    
+    public static FlagDefinition of(boolean enabled) {
+        return new FlagDefinition(enabled, 100, List.of(), List.of());
+    }
+    
+    public FlagDefinition withEnabled(boolean enabled) {
+        return new FlagDefinition(enabled, rolloutPercentage, allow, deny);
+    }
+    
+    public boolean isTargeted() {
+        return rolloutPercentage < 100 || !allow.isEmpty() || !deny.isEmpty();
+    }
+}
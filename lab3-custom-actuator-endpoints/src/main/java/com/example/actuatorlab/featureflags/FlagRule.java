@@ -0,0 +1,123 @@
+package com.example.actuatorlab.featureflags;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compiled form of a {@link FlagDefinition}: a short chain of nodes evaluated
+ * per user. Deny and allow lists are sorted arrays of user keys searched with a
+ * binary search; the rollout compares a salted hash of the user key with a
+ * fixed threshold. Evaluation never allocates.
+ */
+abstract class FlagRule {
+    
+    static final FlagRule ON = new Constant(true);
+    static final FlagRule OFF = new Constant(false);
+    
+    // One bucket per percent: FlagDefinition.rolloutPercentage is a whole number
+    private static final int ROLLOUT_BUCKETS = 100;
+    
+    /**
+     * Result for callers that do not identify a user: the master switch.
+     */
+    abstract boolean isEnabled();
+    
+    abstract boolean evaluate(long userKey);
+    
+    static FlagRule compile(String flagName, FlagDefinition definition) {
+        if (!definition.enabled()) {
+            return OFF;
+        }
+        FlagRule rule = switch (definition.rolloutPercentage()) {
+            case 100 -> ON;
+            case 0 -> new Constant(false, true);
+            default -> new Rollout(definition.rolloutPercentage(), UserKeys.of(flagName));
+        };
+        if (!definition.allow().isEmpty()) {
+            rule = new Listed(keys(definition.allow()), true, rule);
+        }
+        if (!definition.deny().isEmpty()) {
+            rule = new Listed(keys(definition.deny()), false, rule);
+        }
+        return rule;
+    }
+    
+    private static long[] keys(List<String> userIds) {
+        return userIds.stream().mapToLong(UserKeys::of).sorted().distinct().toArray();
+    }
+    
+    private static final class Constant extends FlagRule {
+        
+        private final boolean value;
+        private final boolean enabled;
+        
+        Constant(boolean value) {
+            this(value, value);
+        }
+        
+        Constant(boolean value, boolean enabled) {
+            this.value = value;
+            this.enabled = enabled;
+        }
+        
+        @Override
+        boolean isEnabled() {
+            return enabled;
+        }
+        
+        @Override
+        boolean evaluate(long userKey) {
+            return value;
+        }
+    }
+    
+    /**
+     * Enables the flag for users whose hash falls in the first threshold of
+     * the 100 buckets, so rollouts move in 1% steps.
+     */
+    private static final class Rollout extends FlagRule {
+        
+        private final int threshold;
+        private final long salt;
+        
+        Rollout(int threshold, long salt) {
+            this.threshold = threshold;
+            this.salt = salt;
+        }
+        
+        @Override
+        boolean isEnabled() {
+            return true;
+        }
+        
+        @Override
+        boolean evaluate(long userKey) {
+            // salting per flag keeps the rollouts of different flags independent
+            long bucket = Long.remainderUnsigned(UserKeys.mix(userKey ^ salt), ROLLOUT_BUCKETS);
+            return bucket < threshold;
+        }
+    }
+    
+    private static final class Listed extends FlagRule {
+        
+        private final long[] userKeys;
+        private final boolean result;
+        private final FlagRule next;
+        
+        Listed(long[] userKeys, boolean result, FlagRule next) {
+            this.userKeys = userKeys;
+            this.result = result;
+            this.next = next;
+        }
+        
+        @Override
+        boolean isEnabled() {
+            return true;
+        }
+        
+        @Override
+        boolean evaluate(long userKey) {
+            return Arrays.binarySearch(userKeys, userKey) >= 0 ? result : next.evaluate(userKey);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.actuatorlab.featureflags;
+
+/**
+ * Stable 64-bit keys for user ids, used by flag targeting.
+ *
+ * The same id always maps to the same key, across restarts and JVMs, so a user
+ * stays in or out of a percentage rollout. Hashing walks the characters
+ * directly and allocates nothing.
+ */
+public final class UserKeys {
+    
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    
+    private UserKeys() {
+    }
+    
+    public static long of(CharSequence userId) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < userId.length(); i++) {
+            hash = (hash ^ userId.charAt(i)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+    
+    /**
+     * Same key as {@code of(Long.toString(userId))}, without building the string.
+     */
+    public static long of(long userId) {
+        long hash = FNV_OFFSET;
+        if (userId < 0) {
+            hash = (hash ^ '-') * FNV_PRIME;
+        }
+        // work on the negative value so that Long.MIN_VALUE needs no special case
+        long negative = userId < 0 ? userId : -userId;
+        long divisor = 1;
+        while (negative / divisor <= -10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            int digit = (int) -(negative / divisor % 10);
+            hash = (hash ^ ('0' + digit)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+    
+    /**
+     * Finalizer of MurmurHash3 (fmix64): spreads every input bit over the whole key.
+     */
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.actuatorlab.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads GC, allocation, thread, CPU and heap figures from the platform MXBeans.
+ *
+ * Meant to be called from one background task: each {@link #sample} also
+ * reports rates over the time since the previous call (allocation rate, GC
+ * time per second), so it keeps the previous totals. The returned maps are
+ * unmodifiable and never touched again, so they can be handed to any number
+ * of readers.
+ */
+public class JvmStatsSampler {
+    
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    
+    private long previousNanos = -1;
+    private long previousGcTimeMs;
+    private long previousGcCount;
+    private long previousAllocatedBytes;
+    
+    public synchronized Map<String, Object> sample() {
+        long now = System.nanoTime();
+        double seconds = previousNanos >= 0 ? (now - previousNanos) / 1e9 : 0;
+        previousNanos = now;
+        
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("gc", gc(seconds));
+        stats.put("allocation", allocation(seconds));
+        stats.put("threads", threads());
+        stats.put("cpu", cpu());
+        stats.put("heap", heap());
+        return Collections.unmodifiableMap(stats);
+    }
+    
+    private Map<String, Object> gc(double seconds) {
+        long count = 0;
+        long timeMs = 0;
+        Map<String, Object> perCollector = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean collector : collectors) {
+            long collectorCount = Math.max(collector.getCollectionCount(), 0);
+            long collectorTime = Math.max(collector.getCollectionTime(), 0);
+            count += collectorCount;
+            timeMs += collectorTime;
+            perCollector.put(collector.getName(), Map.of("collections", collectorCount, "timeMs", collectorTime));
+        }
+        Map<String, Object> gc = new LinkedHashMap<>();
+        gc.put("collections", count);
+        gc.put("timeMs", timeMs);
+        gc.put("recentCollections", count - previousGcCount);
+        // share of wall-clock time spent collecting since the previous sample
+        gc.put("recentTimePercent", seconds > 0 ? (timeMs - previousGcTimeMs) / (seconds * 10) : 0.0);
+        gc.put("collectors", Collections.unmodifiableMap(perCollector));
+        previousGcCount = count;
+        previousGcTimeMs = timeMs;
+        return Collections.unmodifiableMap(gc);
+    }
+    
+    private Map<String, Object> allocation(double seconds) {
+        if (!(threads instanceof com.sun.management.ThreadMXBean hotspot)
+                || !hotspot.isThreadAllocatedMemorySupported()
+                || !hotspot.isThreadAllocatedMemoryEnabled()) {
+            return Map.of("supported", false);
+        }
+        long allocated = hotspot.getTotalThreadAllocatedBytes();
+        long recent = allocated - previousAllocatedBytes;
+        previousAllocatedBytes = allocated;
+        return Map.of(
+            "supported", true,
+            "totalBytes", allocated,
+            "bytesPerSecond", seconds > 0 ? (long) (recent / seconds) : 0L);
+    }
+    
+    private Map<String, Object> threads() {
+        return Map.of(
+            "live", threads.getThreadCount(),
+            "daemon", threads.getDaemonThreadCount(),
+            "peak", threads.getPeakThreadCount(),
+            "totalStarted", threads.getTotalStartedThreadCount());
+    }
+    
+    private Map<String, Object> cpu() {
+        Map<String, Object> cpu = new LinkedHashMap<>();
+        cpu.put("availableProcessors", os.getAvailableProcessors());
+        cpu.put("systemLoadAverage", os.getSystemLoadAverage());
+        if (os instanceof com.sun.management.OperatingSystemMXBean hotspot) {
+            // both loads are fractions (0-1) over the interval since the previous call, or negative if unknown
+            cpu.put("processLoad", hotspot.getProcessCpuLoad());
+            cpu.put("systemLoad", hotspot.getCpuLoad());
+            cpu.put("processTimeMs", hotspot.getProcessCpuTime() / 1_000_000);
+        }
+        return Collections.unmodifiableMap(cpu);
+    }
+    
+    private Map<String, Object> heap() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        return Map.of(
+            "usedBytes", heap.getUsed(),
+            "committedBytes", heap.getCommitted(),
+            "maxBytes", heap.getMax());
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.actuatorlab.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size, in-memory history of orders, revenue and order amounts.
+ *
+ * Two rings are kept: one slot per second for the last hour and one slot per
+ * minute for the last day. Every slot holds the order count, the revenue and a
+ * log-linear histogram of order amounts, so all memory is allocated up front
+ * (see {@link #getMemoryBytes()}) and never grows.
+ *
+ * Request threads only bump a striped histogram of live amounts. Once per
+ * second {@link #sample} turns the change since the previous sample into the
+ * current second and minute slots; it is the only writer of the rings.
+ */
+public class OrderTimeSeries {
+    
+    public static final int SECONDS = 3600;
+    public static final int MINUTES = 1440;
+    
+    // Values below 4 get their own bucket, above that every power of two is split in two
+    private static final int LINEAR_LIMIT = 4;
+    private static final int BUCKETS = 64;
+    
+    private final Ring seconds = new Ring(SECONDS);
+    private final Ring minutes = new Ring(MINUTES);
+    
+    private final LongAdder[] liveAmounts = new LongAdder[BUCKETS];
+    private final long[] sampledAmounts = new long[BUCKETS];
+    private final long[] amountDelta = new long[BUCKETS];
+    private long sampledOrders;
+    private long sampledRevenue;
+    private volatile long lastSecond = -1;
+    
+    public OrderTimeSeries() {
+        for (int i = 0; i < BUCKETS; i++) {
+            liveAmounts[i] = new LongAdder();
+        }
+    }
+    
+    public void recordAmount(long amount) {
+        liveAmounts[indexOf(amount)].increment();
+    }
+    
+    /**
+     * Records everything counted since the previous sample into the slots of
+     * the current second and minute.
+     */
+    public synchronized void sample(StripedOrderCounter.Totals totals, long nowMillis) {
+        long second = nowMillis / 1000;
+        long orders = totals.orders() - sampledOrders;
+        long revenue = totals.revenue() - sampledRevenue;
+        sampledOrders = totals.orders();
+        sampledRevenue = totals.revenue();
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = liveAmounts[i].sum();
+            amountDelta[i] = count - sampledAmounts[i];
+            sampledAmounts[i] = count;
+        }
+        
+        long previous = lastSecond;
+        if (previous >= 0 && second <= previous) {
+            // a second sample within the same second: add to its slot
+            seconds.add(previous, orders, revenue, amountDelta);
+        } else {
+            // seconds without a sample (e.g. a long GC pause) keep an older slot id and read as empty
+            seconds.reset(second);
+            seconds.add(second, orders, revenue, amountDelta);
+            lastSecond = second;
+        }
+        long minute = Math.max(second, previous) / 60;
+        if (!minutes.holds(minute)) {
+            minutes.reset(minute);
+        }
+        minutes.add(minute, orders, revenue, amountDelta);
+    }
+    
+    /**
+     * Sums the given window, ending at the latest sample. Windows up to an hour
+     * use one-second slots, longer ones (up to a day) one-minute slots.
+     */
+    public Window window(Duration duration) {
+        long last = lastSecond;
+        long requestedSeconds = Math.max(1, duration.toSeconds());
+        if (requestedSeconds > (long) MINUTES * 60) {
+            throw new IllegalArgumentException("Window exceeds the retained " + MINUTES / 60 + "h of history: " + duration);
+        }
+        boolean perSecond = requestedSeconds <= SECONDS;
+        Ring ring = perSecond ? seconds : minutes;
+        long slots = perSecond ? requestedSeconds : (requestedSeconds + 59) / 60;
+        long end = perSecond ? last : last / 60;
+        
+        Window window = new Window(perSecond ? Duration.ofSeconds(slots) : Duration.ofMinutes(slots),
+                perSecond ? Duration.ofSeconds(1) : Duration.ofMinutes(1));
+        if (last < 0) {
+            return window;
+        }
+        for (long slot = end - slots + 1; slot <= end; slot++) {
+            ring.addTo(slot, window);
+        }
+        return window;
+    }
+    
+    /**
+     * Heap used by the preallocated rings, in bytes (array payloads only).
+     */
+    public long getMemoryBytes() {
+        return seconds.memoryBytes() + minutes.memoryBytes();
+    }
+    
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) Math.max(value, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int half = (int) (value >>> (exponent - 1)) & 1;
+        return Math.min(LINEAR_LIMIT + (exponent - 2) * 2 + half, BUCKETS - 1);
+    }
+    
+    static long highestValueIn(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int offset = index - LINEAR_LIMIT;
+        int exponent = offset / 2 + 2;
+        long lowest = (1L << exponent) + (long) (offset % 2) * (1L << (exponent - 1));
+        return index == BUCKETS - 1 ? Long.MAX_VALUE : lowest + (1L << (exponent - 1)) - 1;
+    }
+    
+    /**
+     * Ring of slots, each tagged with the second or minute it belongs to so
+     * that slots which have not been written for a full lap read as empty.
+     */
+    private static final class Ring {
+        
+        private final int size;
+        private final AtomicLongArray slotIds;
+        private final AtomicLongArray orders;
+        private final AtomicLongArray revenue;
+        private final AtomicIntegerArray amounts;
+        
+        Ring(int size) {
+            this.size = size;
+            this.slotIds = new AtomicLongArray(size);
+            this.orders = new AtomicLongArray(size);
+            this.revenue = new AtomicLongArray(size);
+            this.amounts = new AtomicIntegerArray(size * BUCKETS);
+            for (int i = 0; i < size; i++) {
+                slotIds.set(i, -1);
+            }
+        }
+        
+        boolean holds(long slot) {
+            return slotIds.get(index(slot)) == slot;
+        }
+        
+        void reset(long slot) {
+            int index = index(slot);
+            // readers skip the slot while it is being cleared
+            slotIds.set(index, -1);
+            orders.set(index, 0);
+            revenue.set(index, 0);
+            for (int i = 0, base = index * BUCKETS; i < BUCKETS; i++) {
+                amounts.set(base + i, 0);
+            }
+            slotIds.set(index, slot);
+        }
+        
+        void add(long slot, long orderDelta, long revenueDelta, long[] amountDelta) {
+            int index = index(slot);
+            orders.addAndGet(index, orderDelta);
+            revenue.addAndGet(index, revenueDelta);
+            for (int i = 0, base = index * BUCKETS; i < BUCKETS; i++) {
+                if (amountDelta[i] != 0) {
+                    amounts.addAndGet(base + i, (int) amountDelta[i]);
+                }
+            }
+        }
+        
+        void addTo(long slot, Window window) {
+            int index = index(slot);
+            if (slotIds.get(index) != slot) {
+                return;
+            }
+            window.orders += orders.get(index);
+            window.revenue += revenue.get(index);
+            for (int i = 0, base = index * BUCKETS; i < BUCKETS; i++) {
+                window.amounts[i] += amounts.get(base + i);
+            }
+        }
+        
+        private int index(long slot) {
+            return (int) Math.floorMod(slot, (long) size);
+        }
+        
+        long memoryBytes() {
+            return (long) size * (3 * Long.BYTES + BUCKETS * Integer.BYTES);
+        }
+    }
+    
+    /**
+     * Totals over a window of slots.
+     */
+    public static final class Window {
+        
+        private final Duration duration;
+        private final Duration resolution;
+        private final long[] amounts = new long[BUCKETS];
+        private long orders;
+        private long revenue;
+        
+        Window(Duration duration, Duration resolution) {
+            this.duration = duration;
+            this.resolution = resolution;
+        }
+        
+        public Duration getDuration() { return duration; }
+        public Duration getResolution() { return resolution; }
+        public long getOrders() { return orders; }
+        public long getRevenue() { return revenue; }
+        
+        public double getOrdersPerSecond() {
+            return (double) orders / duration.toSeconds();
+        }
+        
+        public double getRevenuePerSecond() {
+            return (double) revenue / duration.toSeconds();
+        }
+        
+        public double getAverageOrderValue() {
+            return orders > 0 ? (double) revenue / orders : 0.0;
+        }
+        
+        public long getAmountCount() {
+            long count = 0;
+            for (long bucket : amounts) {
+                count += bucket;
+            }
+            return count;
+        }
+        
+        /**
+         * Upper bound of the bucket holding the given percentile (0-100) of
+         * order amounts; accurate to within a third of the value.
+         */
+        public long getAmountAtPercentile(double percentile) {
+            long count = getAmountCount();
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += amounts[i];
+                if (seen >= rank) {
+                    return highestValueIn(i);
+                }
+            }
+            return highestValueIn(BUCKETS - 1);
+        }
+    }
+}
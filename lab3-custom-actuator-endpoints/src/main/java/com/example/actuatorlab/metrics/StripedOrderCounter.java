@@ -0,0 +1,121 @@
+package com.example.actuatorlab.metrics;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contention-free counter of orders and revenue.
+ *
+ * Updates are spread over a power-of-two number of stripes, each on its own
+ * cache line, so threads on different cores do not fight over one shared
+ * counter. Every stripe is guarded by a sequence number (a seqlock): a writer
+ * makes it odd while it updates orders and revenue together, and readers retry
+ * a stripe whose sequence changed under them. A snapshot therefore never sees
+ * the order count of a recorded order without its amount, or the other way round.
+ * A reader that keeps failing on a stripe stops spinning: it yields to a
+ * writer that may have been preempted mid-update, and takes the stripe's lock
+ * itself once it is free, so steady writes cannot starve it.
+ */
+public class StripedOrderCounter {
+    
+    // 16 longs = 128 bytes between stripes, enough to keep adjacent-line prefetch apart
+    private static final int STRIDE = 16;
+    private static final int SEQUENCE = 0;
+    private static final int ORDERS = 1;
+    private static final int REVENUE = 2;
+    // optimistic read attempts on a stripe before a snapshot yields and then locks it
+    private static final int SPIN_LIMIT = 64;
+    
+    private final AtomicLongArray cells;
+    private final int mask;
+    
+    public StripedOrderCounter() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+    
+    public StripedOrderCounter(int minStripes) {
+        int stripes = Integer.highestOneBit(Math.max(1, Math.min(minStripes, 1 << 10)) * 2 - 1);
+        this.cells = new AtomicLongArray(stripes * STRIDE);
+        this.mask = stripes - 1;
+    }
+    
+    public void recordOrder(long amount) {
+        add(1, amount);
+    }
+    
+    public void addOrders(long orders) {
+        add(orders, 0);
+    }
+    
+    public void addRevenue(long amount) {
+        add(0, amount);
+    }
+    
+    private void add(long orders, long revenue) {
+        int stripe = stripeFor(Thread.currentThread());
+        while (true) {
+            int base = stripe * STRIDE;
+            long sequence = cells.get(base + SEQUENCE);
+            if ((sequence & 1) == 0 && cells.compareAndSet(base + SEQUENCE, sequence, sequence + 1)) {
+                // the stripe is ours until the sequence is even again
+                cells.setOpaque(base + ORDERS, cells.getPlain(base + ORDERS) + orders);
+                cells.setOpaque(base + REVENUE, cells.getPlain(base + REVENUE) + revenue);
+                cells.setRelease(base + SEQUENCE, sequence + 2);
+                return;
+            }
+            // another writer holds this stripe; move on instead of waiting for it
+            stripe = (stripe + 1) & mask;
+        }
+    }
+    
+    private int stripeFor(Thread thread) {
+        long h = thread.threadId() * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 40) & mask;
+    }
+    
+    public Totals snapshot() {
+        long orders = 0;
+        long revenue = 0;
+        for (int stripe = 0; stripe <= mask; stripe++) {
+            int base = stripe * STRIDE;
+            for (int attempt = 0; ; attempt++) {
+                long before = cells.getAcquire(base + SEQUENCE);
+                if ((before & 1) == 0) {
+                    if (attempt >= SPIN_LIMIT && cells.compareAndSet(base + SEQUENCE, before, before + 1)) {
+                        // optimistic reads keep failing: lock the stripe like a writer (writers move on to another one)
+                        orders += cells.getPlain(base + ORDERS);
+                        revenue += cells.getPlain(base + REVENUE);
+                        cells.setRelease(base + SEQUENCE, before + 2);
+                        break;
+                    }
+                    long stripeOrders = cells.getOpaque(base + ORDERS);
+                    long stripeRevenue = cells.getOpaque(base + REVENUE);
+                    VarHandle.acquireFence();
+                    if (cells.getAcquire(base + SEQUENCE) == before) {
+                        orders += stripeOrders;
+                        revenue += stripeRevenue;
+                        break;
+                    }
+                }
+                if (attempt < SPIN_LIMIT) {
+                    Thread.onSpinWait();
+                } else {
+                    // the writer holding the stripe may have been preempted: give it the CPU instead of spinning
+                    Thread.yield();
+                }
+            }
+        }
+        return new Totals(orders, revenue);
+    }
+    
+    public int getStripes() {
+        return mask + 1;
+    }
+    
+    public record Totals(long orders, long revenue) {
+        
+        public double averageOrderValue() {
+            return orders > 0 ? (double) revenue / orders : 0.0;
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package com.example.actuatorlab.state;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Small persistent key-value store for endpoint state that should survive a
+ * restart (feature flags, application stats).
+ *
+ * Every change is appended to a memory-mapped journal as a
+ * [length][crc][key][value] record and the writer then waits for the
+ * committer thread to force the journal to disk. Writes that arrive while a
+ * force is running are committed together by the next one (group commit), so
+ * a write that has returned is durable and concurrent writers share the cost
+ * of a disk flush.
+ *
+ * The whole state is periodically written to a snapshot file (temp file plus
+ * atomic rename) after which the journal starts over. Snapshot and journal
+ * both start with a generation number, and every record's checksum covers
+ * it. Writing a snapshot moves to the next generation, so a journal whose
+ * reset did not reach the disk before a crash belongs to an older generation
+ * and is ignored instead of being replayed over the newer snapshot.
+ *
+ * On startup the snapshot is loaded and the journal replayed on top of it.
+ * Replay stops at the first record that is incomplete or fails its checksum,
+ * so a tail torn by a crash is dropped instead of corrupting the state.
+ */
+@Component
+public class StateJournal {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StateJournal.class);
+    
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int GENERATION_BYTES = Long.BYTES;
+    private static final String SNAPSHOT_FILE = "state.snapshot";
+    private static final String JOURNAL_FILE = "state.journal";
+    
+    private final Path directory;
+    private final TreeMap<String, String> state = new TreeMap<>();
+    private final FileChannel journalChannel;
+    private final MappedByteBuffer journal;
+    private final ScheduledExecutorService snapshotter;
+    private final Thread committer;
+    private long generation;
+    private int journalRecords;
+    
+    // commit progress, guarded by commitLock: records are numbered in append order
+    private final Object commitLock = new Object();
+    private long appended;
+    private long committed;
+    private long failed;
+    private long commits;
+    private boolean closed;
+    
+    public StateJournal(@Value("${app.state.dir:./data}") Path directory,
+                        @Value("${app.state.journal-size:4MB}") DataSize journalSize,
+                        @Value("${app.state.snapshot-interval:5m}") Duration snapshotInterval) throws IOException {
+        this.directory = directory;
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+        loadSnapshot();
+        
+        Path journalPath = directory.resolve(JOURNAL_FILE);
+        this.journalChannel = FileChannel.open(journalPath,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(journalSize.toBytes(), journalChannel.size());
+        this.journal = journalChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(size, Integer.MAX_VALUE));
+        replayJournal();
+        
+        logger.info("Loaded {} state entries ({} journal records) from {} in {} ms", state.size(), journalRecords,
+                directory.toAbsolutePath(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        
+        this.committer = new Thread(this::commitLoop, "state-journal-committer");
+        committer.setDaemon(true);
+        committer.start();
+        this.snapshotter = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "state-journal-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(this::snapshotIfNeeded, snapshotInterval.toMillis(), snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    public synchronized String get(String key) {
+        return state.get(key);
+    }
+    
+    /**
+     * All entries whose key starts with the prefix, with the prefix removed.
+     */
+    public synchronized Map<String, String> entries(String prefix) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        state.subMap(prefix, prefix + Character.MAX_VALUE)
+                .forEach((key, value) -> entries.put(key.substring(prefix.length()), value));
+        return entries;
+    }
+    
+    /**
+     * Stores the value and returns once it has been forced to disk.
+     */
+    public void put(String key, String value) {
+        put(key, () -> value);
+    }
+    
+    /**
+     * Stores the value the supplier returns and returns once it has been
+     * forced to disk; nothing is written if the supplier returns null.
+     *
+     * The supplier is called under the journal's lock, but the wait for the
+     * disk is not, so concurrent writers still share commits. When several
+     * threads write the same key, the record appended last therefore carries
+     * the newest value. The supplier must be cheap and must not call back into
+     * the journal.
+     */
+    public void put(String key, Supplier<String> latest) {
+        long record;
+        synchronized (this) {
+            String value = latest.get();
+            if (value == null || value.equals(state.get(key))) {
+                return;
+            }
+            String previous = state.put(key, value);
+            record = appendOrRollBack(key, value, previous);
+        }
+        awaitCommit(record);
+    }
+    
+    /**
+     * Removes the key and returns once the removal has been forced to disk.
+     */
+    public void remove(String key) {
+        long record;
+        synchronized (this) {
+            String previous = state.remove(key);
+            if (previous == null) {
+                return;
+            }
+            record = appendOrRollBack(key, null, previous);
+        }
+        awaitCommit(record);
+    }
+    
+    /**
+     * Appends the change already made to the state. The state is updated first
+     * so that a snapshot taken because the journal is full includes it; if the
+     * append fails, the key is put back as it was, so memory never holds a value
+     * that is not on disk (and a retry is not mistaken for a no-op).
+     */
+    private long appendOrRollBack(String key, String value, String previous) {
+        try {
+            return append(key, value);
+        } catch (RuntimeException e) {
+            if (previous != null) {
+                state.put(key, previous);
+            } else {
+                state.remove(key);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Appends a record to the journal and returns its number for
+     * {@link #awaitCommit}.
+     */
+    private long append(String key, String value) {
+        byte[] record = encode(generation, key, value);
+        if (GENERATION_BYTES + record.length + Integer.BYTES > journal.capacity()) {
+            throw new IllegalArgumentException("State entry too large for the journal: " + key);
+        }
+        if (journal.position() + record.length + Integer.BYTES > journal.capacity()) {
+            // journal full: fold everything into a new snapshot and start over,
+            // in the next generation, which the record's checksum must cover
+            snapshot();
+            record = encode(generation, key, value);
+        }
+        int start = journal.position();
+        // the length goes in last so that a record torn by a crash reads as the end of the journal
+        journal.put(start + Integer.BYTES, record, Integer.BYTES, record.length - Integer.BYTES);
+        journal.putInt(start, record.length - HEADER_BYTES);
+        journal.position(start + record.length);
+        journalRecords++;
+        synchronized (commitLock) {
+            appended++;
+            commitLock.notifyAll();
+            return appended;
+        }
+    }
+    
+    private void awaitCommit(long record) {
+        synchronized (commitLock) {
+            while (committed < record) {
+                if (failed >= record) {
+                    throw new UncheckedIOException(new IOException("Failed to force the state journal to disk"));
+                }
+                if (closed) {
+                    throw new IllegalStateException("State journal is closed");
+                }
+                try {
+                    commitLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the state journal", e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Forces the journal whenever records are waiting. Records appended while a
+     * force is running are picked up together by the next one.
+     */
+    private void commitLoop() {
+        while (true) {
+            long target;
+            synchronized (commitLock) {
+                while (committed == appended && !closed) {
+                    try {
+                        commitLock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+                target = appended;
+            }
+            try {
+                journal.force();
+                synchronized (commitLock) {
+                    commits++;
+                    markCommitted(target);
+                }
+            } catch (UncheckedIOException e) {
+                logger.error("Failed to force the state journal", e);
+                synchronized (commitLock) {
+                    failed = Math.max(failed, target);
+                    commitLock.notifyAll();
+                }
+            }
+        }
+    }
+    
+    private void markCommitted(long record) {
+        synchronized (commitLock) {
+            committed = Math.max(committed, record);
+            commitLock.notifyAll();
+        }
+    }
+    
+    /**
+     * Encodes [payload length][crc32c][key length][key][value length or -1][value].
+     * The checksum also covers the generation, so the record only reads back
+     * as valid in the generation it was written in.
+     */
+    private static byte[] encode(long generation, String key, String value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int payloadLength = Integer.BYTES + keyBytes.length + Integer.BYTES + valueBytes.length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payloadLength);
+        buffer.putInt(payloadLength).putInt(0)
+                .putInt(keyBytes.length).put(keyBytes)
+                .putInt(value != null ? valueBytes.length : -1).put(valueBytes);
+        buffer.putInt(Integer.BYTES, checksum(generation, buffer.slice(HEADER_BYTES, payloadLength)));
+        return buffer.array();
+    }
+    
+    private static int checksum(long generation, ByteBuffer payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(GENERATION_BYTES).putLong(0, generation));
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+    
+    /**
+     * Applies records from the buffer to the state until the end of the data or
+     * the first damaged record or the first record of another generation.
+     * Returns the number of records applied.
+     */
+    private int apply(ByteBuffer buffer, long generation) {
+        int applied = 0;
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+            if (checksum(generation, buffer.slice(buffer.position(), length)) != checksum) {
+                buffer.position(start);
+                break;
+            }
+            byte[] key = new byte[buffer.getInt()];
+            buffer.get(key);
+            int valueLength = buffer.getInt();
+            String value = null;
+            if (valueLength >= 0) {
+                byte[] valueBytes = new byte[valueLength];
+                buffer.get(valueBytes);
+                value = new String(valueBytes, StandardCharsets.UTF_8);
+            }
+            String name = new String(key, StandardCharsets.UTF_8);
+            if (value != null) {
+                state.put(name, value);
+            } else {
+                state.remove(name);
+            }
+            applied++;
+        }
+        return applied;
+    }
+    
+    private void loadSnapshot() throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+            generation = buffer.getLong();
+            apply(buffer, generation);
+        }
+    }
+    
+    private void replayJournal() {
+        long journalGeneration = journal.getLong(0);
+        if (journalGeneration != generation) {
+            // the snapshot was written but the journal reset never reached the disk: the snapshot already holds it
+            if (journal.getInt(GENERATION_BYTES) != 0) {
+                logger.warn("Ignoring journal of generation {}, the snapshot is at generation {}",
+                        journalGeneration, generation);
+            }
+            resetJournal();
+            return;
+        }
+        journal.position(GENERATION_BYTES);
+        journalRecords = apply(journal, generation);
+        int end = journal.position();
+        if (end + HEADER_BYTES <= journal.capacity() && journal.getInt(end) != 0) {
+            logger.warn("Dropping damaged journal tail at offset {}", end);
+        }
+        // clear whatever follows the last good record so that new records are never mixed with old bytes
+        zero(end);
+        journal.position(end);
+    }
+    
+    private void resetJournal() {
+        zero(GENERATION_BYTES);
+        journal.putLong(0, generation);
+        journal.position(GENERATION_BYTES);
+        journal.force();
+        journalRecords = 0;
+    }
+    
+    private void zero(int from) {
+        for (int i = from; i < journal.capacity(); i++) {
+            if (journal.get(i) != 0) {
+                journal.put(i, (byte) 0);
+            }
+        }
+    }
+    
+    /**
+     * The scheduled snapshot. Failures are logged and not thrown, since an
+     * exception would cancel every later run of the task.
+     */
+    private synchronized void snapshotIfNeeded() {
+        try {
+            if (journalRecords > 0) {
+                snapshot();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to write the scheduled state snapshot, retrying at the next interval", e);
+        }
+    }
+    
+    /**
+     * Writes the full state to the snapshot file as the next generation and
+     * starts the journal over in that generation.
+     */
+    private synchronized void snapshot() {
+        long next = generation + 1;
+        try {
+            Path snapshot = directory.resolve(SNAPSHOT_FILE);
+            Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                write(channel, ByteBuffer.allocate(GENERATION_BYTES).putLong(0, next));
+                for (Map.Entry<String, String> entry : state.entrySet()) {
+                    write(channel, ByteBuffer.wrap(encode(next, entry.getKey(), entry.getValue())));
+                }
+                channel.force(true);
+            }
+            Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            forceDirectory();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write state snapshot", e);
+        }
+        // the snapshot is durable: a crash from here on leaves a journal of the old generation, which is ignored
+        generation = next;
+        resetJournal();
+        synchronized (commitLock) {
+            markCommitted(appended);
+        }
+    }
+    
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+    /**
+     * Makes the snapshot rename durable before the journal is reset.
+     */
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // not every platform can open a directory; the rename is then as durable as the OS makes it
+            logger.debug("Could not force state directory {}", directory, e);
+        }
+    }
+    
+    @PreDestroy
+    public void close() throws IOException {
+        snapshotter.shutdownNow();
+        synchronized (this) {
+            journal.force();
+            synchronized (commitLock) {
+                markCommitted(appended);
+                closed = true;
+                commitLock.notifyAll();
+            }
+            journalChannel.close();
+        }
+    }
+    
+    /**
+     * Number of times the committer has forced the journal to disk.
+     */
+    public long getCommitCount() {
+        synchronized (commitLock) {
+            return commits;
+        }
+    }
+    
+    public Path getDirectory() {
+        return directory;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.actuatorlab.benchmark;
+
+import com.example.actuatorlab.featureflags.FeatureFlag;
+import com.example.actuatorlab.featureflags.FeatureFlagRegistry;
+import com.example.actuatorlab.featureflags.FlagDefinition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feature flag checks on the request path while the flags are being changed.
+ *
+ * Each group has three threads checking a master switch through its handle,
+ * three evaluating rollout plus targeting for a user, and one rewriting both
+ * definitions in a loop. Results are in operations per microsecond, so 1
+ * ops/us is a million evaluations per second; divide a reader's score by its
+ * three threads, or by the cores they ran on, for the rate per core.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlagEvaluationBenchmark {
+    
+    private FeatureFlagRegistry registry;
+    private FeatureFlag newUi;
+    private FeatureFlag rollout;
+    private long user;
+    private int updates;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new FeatureFlagRegistry();
+        newUi = registry.flag("new-ui");
+        registry.define("rollout", new FlagDefinition(true, 30, List.of("alice"), List.of("mallory")));
+        rollout = registry.flag("rollout");
+    }
+    
+    @Benchmark
+    @Group("evaluate")
+    @GroupThreads(3)
+    public boolean isEnabled() {
+        return newUi.isEnabled();
+    }
+    
+    @Benchmark
+    @Group("evaluate")
+    @GroupThreads(3)
+    public boolean isEnabledFor() {
+        // a different user each call; the field is racy on purpose, any value will do
+        return rollout.isEnabledFor(user++);
+    }
+    
+    @Benchmark
+    @Group("evaluate")
+    @GroupThreads(1)
+    public void update() {
+        int step = updates++;
+        registry.set("new-ui", (step & 1) == 0);
+        registry.define("rollout", new FlagDefinition(true, step % 100, List.of("alice"), List.of("mallory")));
+    }
+}
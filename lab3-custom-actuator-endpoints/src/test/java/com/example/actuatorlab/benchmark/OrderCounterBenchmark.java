@@ -0,0 +1,67 @@
+package com.example.actuatorlab.benchmark;
+
+import com.example.actuatorlab.metrics.StripedOrderCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contention on the businessmetrics order counters: recording an order on the
+ * striped counter against the two shared AtomicLongs it replaced, and taking
+ * a snapshot while other threads write.
+ *
+ * Throughput is summed over all threads; sweep the thread count with
+ * {@code -t}, e.g. for 1 to 128 threads:
+ * {@code for t in 1 2 4 8 16 32 64 128; do ./gradlew jmh -PjmhArgs="OrderCounterBenchmark -t $t"; done}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderCounterBenchmark {
+    
+    private final StripedOrderCounter striped = new StripedOrderCounter();
+    private final AtomicLong totalOrders = new AtomicLong();
+    private final AtomicLong totalRevenue = new AtomicLong();
+    
+    @Benchmark
+    public void stripedRecordOrder() {
+        striped.recordOrder(25);
+    }
+    
+    @Benchmark
+    public void atomicRecordOrder() {
+        totalOrders.incrementAndGet();
+        totalRevenue.addAndGet(25);
+    }
+    
+    /**
+     * Seven writers and one reader taking snapshots; change the split with {@code -tg}.
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(7)
+    public void mixedRecordOrder() {
+        striped.recordOrder(25);
+    }
+    
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public StripedOrderCounter.Totals mixedSnapshot() {
+        return striped.snapshot();
+    }
+}
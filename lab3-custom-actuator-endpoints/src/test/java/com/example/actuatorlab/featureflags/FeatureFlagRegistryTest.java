@@ -0,0 +1,92 @@
+package com.example.actuatorlab.featureflags;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeatureFlagRegistryTest {
+    
+    @Test
+    void concurrentUpdatesOfOneFlagAreNotLost() throws Exception {
+        FeatureFlagRegistry registry = new FeatureFlagRegistry();
+        registry.define("rollout", new FlagDefinition(true, 0, List.of(), List.of()));
+        
+        int threads = 4;
+        int updatesPerThread = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < updatesPerThread; i++) {
+                    String userId = "user-" + thread + "-" + i;
+                    registry.update("rollout", current -> {
+                        List<String> allow = new ArrayList<>(current.allow());
+                        allow.add(userId);
+                        return new FlagDefinition(current.enabled(), current.rolloutPercentage() + 1,
+                                allow, current.deny());
+                    });
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        FlagDefinition definition = registry.getDefinition("rollout");
+        assertThat(definition.rolloutPercentage()).isEqualTo(threads * updatesPerThread);
+        assertThat(definition.allow()).hasSize(threads * updatesPerThread).doesNotHaveDuplicates();
+    }
+    
+    @Test
+    void rolloutEnablesItsPercentageOfUsersAndOnlyGrows() {
+        FeatureFlagRegistry registry = new FeatureFlagRegistry();
+        FeatureFlag flag = registry.flag("rollout");
+        int users = 100_000;
+        
+        registry.define("rollout", new FlagDefinition(true, 30, List.of(), List.of()));
+        boolean[] atThirty = new boolean[users];
+        int enabled = 0;
+        for (int user = 0; user < users; user++) {
+            atThirty[user] = flag.isEnabledFor(user);
+            enabled += atThirty[user] ? 1 : 0;
+        }
+        assertThat(enabled).isBetween(29_000, 31_000);
+        
+        // one more percent adds users and never drops one
+        registry.define("rollout", new FlagDefinition(true, 31, List.of(), List.of()));
+        int added = 0;
+        for (int user = 0; user < users; user++) {
+            boolean now = flag.isEnabledFor(user);
+            if (atThirty[user]) {
+                assertThat(now).as("user %d", user).isTrue();
+            } else if (now) {
+                added++;
+            }
+        }
+        assertThat(added).isBetween(700, 1_300);
+    }
+    
+    @Test
+    void updateOfUnknownFlagStartsFromDisabled() {
+        FeatureFlagRegistry registry = new FeatureFlagRegistry();
+        
+        FlagDefinition definition = registry.update("fresh", current -> current.withEnabled(!current.enabled()));
+        
+        assertThat(definition.enabled()).isTrue();
+        assertThat(registry.isEnabled("fresh")).isTrue();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.actuatorlab.featureflags;
+
+import com.example.actuatorlab.state.StateJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeatureFlagStoreTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void concurrentFlagWritesShareCommits() throws Exception {
+        StateJournal journal = open();
+        FeatureFlagRegistry registry = new FeatureFlagRegistry();
+        new FeatureFlagStore(registry, journal);
+        long commitsBefore = journal.getCommitCount();
+        
+        int writers = 2;
+        int writesPerWriter = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            String flag = "flag-" + w;
+            futures.add(executor.submit(() -> {
+                start.await();
+                // every write flips the flag, so each one appends a record and waits for it to be on disk
+                for (int i = 0; i < writesPerWriter; i++) {
+                    registry.set(flag, i % 2 == 0);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        // a writer waiting for its force no longer keeps the other one from appending, so some forces cover both
+        long commits = journal.getCommitCount() - commitsBefore;
+        assertThat(commits).isPositive().isLessThan((long) writers * writesPerWriter);
+        journal.close();
+        
+        StateJournal reopened = open();
+        FeatureFlagRegistry reloaded = new FeatureFlagRegistry();
+        new FeatureFlagStore(reloaded, reopened);
+        for (int w = 0; w < writers; w++) {
+            assertThat(reloaded.getDefinition("flag-" + w)).isEqualTo(registry.getDefinition("flag-" + w));
+        }
+        reopened.close();
+    }
+    
+    @Test
+    void lastDefinitionOfAFlagSticks() throws Exception {
+        StateJournal journal = open();
+        FeatureFlagRegistry registry = new FeatureFlagRegistry();
+        new FeatureFlagStore(registry, journal);
+        
+        int threads = 4;
+        int updatesPerThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < updatesPerThread; i++) {
+                    registry.update("shared", current -> new FlagDefinition(current.enabled(),
+                            (current.rolloutPercentage() + 1) % 100, current.allow(), current.deny()));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        journal.close();
+        
+        StateJournal reopened = open();
+        FeatureFlagRegistry reloaded = new FeatureFlagRegistry();
+        new FeatureFlagStore(reloaded, reopened);
+        assertThat(reloaded.getDefinition("shared")).isEqualTo(registry.getDefinition("shared"));
+        reopened.close();
+    }
+    
+    private StateJournal open() throws Exception {
+        return new StateJournal(directory, DataSize.ofKilobytes(256), Duration.ofHours(1));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.actuatorlab.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedOrderCounterTest {
+    
+    @Test
+    void snapshotsStayConsistentAndKeepUpWithWriters() throws Exception {
+        // few stripes and more writers than cores, so readers often meet a stripe that is being written
+        StripedOrderCounter counter = new StripedOrderCounter(2);
+        int writers = 8;
+        int ordersPerWriter = 200_000;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ordersPerWriter; i++) {
+                    counter.recordOrder(25);
+                }
+                return null;
+            }));
+        }
+        Future<Integer> reader = executor.submit(() -> {
+            start.await();
+            int snapshots = 0;
+            while (!done.get()) {
+                StripedOrderCounter.Totals totals = counter.snapshot();
+                assertThat(totals.revenue()).isEqualTo(totals.orders() * 25);
+                snapshots++;
+            }
+            return snapshots;
+        });
+        
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        done.set(true);
+        assertThat(reader.get(10, TimeUnit.SECONDS)).isPositive();
+        executor.shutdown();
+        
+        StripedOrderCounter.Totals totals = counter.snapshot();
+        assertThat(totals.orders()).isEqualTo((long) writers * ordersPerWriter);
+        assertThat(totals.revenue()).isEqualTo(25L * writers * ordersPerWriter);
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.actuatorlab.state;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StateJournalTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void writesSurviveReopen() throws Exception {
+        StateJournal journal = open(DataSize.ofKilobytes(4));
+        journal.put("a", "1");
+        journal.put("b", "2");
+        journal.put("a", "3");
+        journal.remove("b");
+        journal.close();
+        
+        StateJournal reopened = open(DataSize.ofKilobytes(4));
+        assertThat(reopened.entries("")).isEqualTo(Map.of("a", "3"));
+        reopened.close();
+    }
+    
+    @Test
+    void truncatedTailIsDropped() throws Exception {
+        StateJournal journal = open(DataSize.ofKilobytes(4));
+        journal.put("a", "1");
+        journal.put("b", "2");
+        journal.close();
+        
+        // cut the last record short, as a crash in the middle of writing it would
+        Path file = directory.resolve("state.journal");
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(lastNonZeroByte(file));
+        }
+        
+        StateJournal reopened = open(DataSize.ofKilobytes(4));
+        assertThat(reopened.entries("")).isEqualTo(Map.of("a", "1"));
+        // new records go where the torn one was and are read back after the next restart
+        reopened.put("c", "3");
+        reopened.close();
+        
+        StateJournal again = open(DataSize.ofKilobytes(4));
+        assertThat(again.entries("")).isEqualTo(Map.of("a", "1", "c", "3"));
+        again.close();
+    }
+    
+    @Test
+    void corruptRecordEndsReplay() throws Exception {
+        StateJournal journal = open(DataSize.ofKilobytes(4));
+        journal.put("a", "1");
+        journal.put("b", "2");
+        journal.put("c", "3");
+        journal.close();
+        
+        // flip a byte inside the value of the second record
+        Path file = directory.resolve("state.journal");
+        byte[] bytes = Files.readAllBytes(file);
+        int value = indexOf(bytes, (byte) '2');
+        bytes[value] ^= 0x40;
+        Files.write(file, bytes);
+        
+        StateJournal reopened = open(DataSize.ofKilobytes(4));
+        assertThat(reopened.entries("")).isEqualTo(Map.of("a", "1"));
+        reopened.close();
+    }
+    
+    @Test
+    void journalOfAnOlderGenerationIsIgnored() throws Exception {
+        // room for three records: the fourth does not fit and forces a snapshot
+        DataSize size = DataSize.ofBytes(80);
+        StateJournal journal = open(size);
+        journal.put("k", "old");
+        journal.put("gone", "x");
+        journal.close();
+        Path file = directory.resolve("state.journal");
+        byte[] beforeSnapshot = Files.readAllBytes(file);
+        
+        StateJournal next = open(size);
+        next.put("k", "new");
+        next.remove("gone");
+        next.close();
+        assertThat(Files.exists(directory.resolve("state.snapshot"))).isTrue();
+        
+        // a crash right after the snapshot rename leaves the journal as it was before the snapshot
+        Files.write(file, beforeSnapshot);
+        
+        StateJournal reopened = open(size);
+        assertThat(reopened.entries("")).isEqualTo(Map.of("k", "new"));
+        reopened.close();
+    }
+    
+    @Test
+    void recordsAppendedAfterAJournalFullSnapshotSurviveReopen() throws Exception {
+        // room for three records: the fourth snapshots the state and starts the next generation
+        DataSize size = DataSize.ofBytes(80);
+        StateJournal journal = open(size);
+        journal.put("a", "1");
+        journal.put("b", "2");
+        journal.put("c", "3");
+        journal.put("d", "4");
+        // only in the new journal, behind the record that triggered the snapshot
+        journal.put("e", "5");
+        journal.close();
+        
+        StateJournal reopened = open(size);
+        assertThat(reopened.entries("")).isEqualTo(Map.of("a", "1", "b", "2", "c", "3", "d", "4", "e", "5"));
+        reopened.close();
+    }
+    
+    @Test
+    void failedPutLeavesTheStateUnchanged() throws Exception {
+        StateJournal journal = open(DataSize.ofBytes(80));
+        journal.put("k", "small");
+        
+        assertThatThrownBy(() -> journal.put("k", "x".repeat(100))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(journal.get("k")).isEqualTo("small");
+        journal.close();
+        
+        StateJournal reopened = open(DataSize.ofBytes(80));
+        assertThat(reopened.get("k")).isEqualTo("small");
+        reopened.close();
+    }
+    
+    @Test
+    void concurrentWritesAreAllCommitted() throws Exception {
+        StateJournal journal = open(DataSize.ofKilobytes(64));
+        int threads = 8;
+        int writesPerThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < writesPerThread; i++) {
+                    journal.put("t" + thread, Integer.toString(i));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        journal.close();
+        
+        StateJournal reopened = open(DataSize.ofKilobytes(64));
+        Map<String, String> entries = reopened.entries("t");
+        assertThat(entries).hasSize(threads);
+        assertThat(entries.values()).containsOnly(Integer.toString(writesPerThread - 1));
+        reopened.close();
+    }
+    
+    private StateJournal open(DataSize size) throws Exception {
+        return new StateJournal(directory, size, Duration.ofHours(1));
+    }
+    
+    private static int lastNonZeroByte(Path file) throws Exception {
+        byte[] bytes = Files.readAllBytes(file);
+        int last = bytes.length - 1;
+        while (bytes[last] == 0) {
+            last--;
+        }
+        return last;
+    }
+    
+    private static int indexOf(byte[] bytes, byte value) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        throw new AssertionError("byte not found");
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.transactionlab;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@SpringBootApplication
+@EnableRetry
+@EnableScheduling
+public class TransactionLabApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(TransactionLabApplication.class, args);
+    }
+
+}
@@ -0,0 +1,329 @@
+package com.example.transactionlab.cache;
+
+import com.example.transactionlab.entity.Account;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of committed account snapshots, keyed by account number.
+ *
+ * Entries are kept in LRU segments bounded both by entry count and by an
+ * estimate of their heap size. Callers get a fresh {@link Account} copy on
+ * every read, so nothing handed out can change a cached value.
+ *
+ * Writers never update the cache directly: they call
+ * {@link #evictAfterCommit} and the entries are dropped once their
+ * transaction has committed. A load that raced with such an eviction (it may
+ * have read the balance before the commit) is not stored; every key maps to a
+ * stamp that evictions bump, and a load is only kept if its stamp did not
+ * move. Inside a read-write transaction the cache is bypassed, so a
+ * transaction's own uncommitted changes are never cached.
+ */
+@Component
+public class AccountCache {
+    
+    private static final int SEGMENTS = 16;
+    private static final int STAMPS = 1024;
+    
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMPS);
+    // Bumped on every eviction; guards the cached list of all accounts
+    private final AtomicLong allStamp = new AtomicLong();
+    private volatile List<Snapshot> allAccounts;
+    
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private final LongAdder staleLoads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    
+    public AccountCache(@Value("${banking.cache.max-entries:10000}") int maxEntries,
+                        @Value("${banking.cache.max-size:16MB}") DataSize maxSize) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxSize.toBytes();
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(Math.max(1, maxEntries / SEGMENTS), Math.max(1, maxBytes / SEGMENTS));
+        }
+    }
+    
+    public Account get(String accountNumber, Supplier<Account> loader) {
+        if (!cacheable()) {
+            bypassed.increment();
+            return loader.get();
+        }
+        Segment segment = segmentFor(accountNumber);
+        Snapshot cached = segment.get(accountNumber);
+        if (cached != null) {
+            hits.increment();
+            return cached.toAccount();
+        }
+        misses.increment();
+        long stamp = stamps.get(stampIndex(accountNumber));
+        Account account = loader.get();
+        Snapshot snapshot = Snapshot.of(account);
+        if (!segment.putIfStamp(accountNumber, snapshot, () -> stamps.get(stampIndex(accountNumber)) == stamp)) {
+            staleLoads.increment();
+        }
+        return account;
+    }
+    
+    public List<Account> getAll(Supplier<List<Account>> loader) {
+        if (!cacheable()) {
+            bypassed.increment();
+            return loader.get();
+        }
+        List<Snapshot> cached = allAccounts;
+        if (cached != null) {
+            hits.increment();
+            List<Account> accounts = new ArrayList<>(cached.size());
+            for (Snapshot snapshot : cached) {
+                accounts.add(snapshot.toAccount());
+            }
+            return accounts;
+        }
+        misses.increment();
+        long stamp = allStamp.get();
+        List<Account> accounts = loader.get();
+        List<Snapshot> snapshots = new ArrayList<>(accounts.size());
+        long bytes = 0;
+        for (Account account : accounts) {
+            Snapshot snapshot = Snapshot.of(account);
+            snapshots.add(snapshot);
+            bytes += snapshot.weight();
+        }
+        // the list is only worth keeping while it is small next to the cache budget
+        if (accounts.size() <= maxEntries && bytes <= maxBytes / 4) {
+            synchronized (allStamp) {
+                if (allStamp.get() == stamp) {
+                    allAccounts = List.copyOf(snapshots);
+                } else {
+                    staleLoads.increment();
+                }
+            }
+        }
+        return accounts;
+    }
+    
+    /**
+     * Drops the accounts once the current transaction commits, or right away
+     * if there is no transaction. Nothing happens on rollback.
+     */
+    public void evictAfterCommit(Collection<String> accountNumbers) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(accountNumbers);
+            return;
+        }
+        List<String> pending = List.copyOf(accountNumbers);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(pending);
+            }
+        });
+    }
+    
+    public void evict(Collection<String> accountNumbers) {
+        synchronized (allStamp) {
+            allStamp.incrementAndGet();
+            allAccounts = null;
+        }
+        for (String accountNumber : accountNumbers) {
+            stamps.incrementAndGet(stampIndex(accountNumber));
+            segmentFor(accountNumber).remove(accountNumber);
+            invalidations.increment();
+        }
+    }
+    
+    public int clear() {
+        synchronized (allStamp) {
+            allStamp.incrementAndGet();
+            allAccounts = null;
+        }
+        int cleared = 0;
+        for (int i = 0; i < STAMPS; i++) {
+            stamps.incrementAndGet(i);
+        }
+        for (Segment segment : segments) {
+            cleared += segment.clear();
+        }
+        return cleared;
+    }
+    
+    private static boolean cacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+    
+    private Segment segmentFor(String accountNumber) {
+        return segments[Math.floorMod(accountNumber.hashCode(), SEGMENTS)];
+    }
+    
+    private static int stampIndex(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return (hash ^ (hash >>> 16)) & (STAMPS - 1);
+    }
+    
+    public int getMaxEntries() { return maxEntries; }
+    public long getMaxBytes() { return maxBytes; }
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getBypassed() { return bypassed.sum(); }
+    public long getStaleLoads() { return staleLoads.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+    public long getInvalidations() { return invalidations.sum(); }
+    
+    public int getSize() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+    
+    public long getWeightBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.weight();
+        }
+        return bytes;
+    }
+    
+    /**
+     * LRU map with its own lock, bounded by entries and estimated bytes.
+     */
+    private final class Segment {
+        
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Snapshot> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int maxEntries;
+        private final long maxBytes;
+        private long bytes;
+        
+        Segment(int maxEntries, long maxBytes) {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+        
+        Snapshot get(String key) {
+            lock.lock();
+            try {
+                return entries.get(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        boolean putIfStamp(String key, Snapshot snapshot, BooleanSupplier stampUnchanged) {
+            lock.lock();
+            try {
+                // checked under the lock: an eviction bumps the stamp before it takes this lock
+                if (!stampUnchanged.getAsBoolean()) {
+                    return false;
+                }
+                Snapshot previous = entries.put(key, snapshot);
+                bytes += snapshot.weight() - (previous != null ? previous.weight() : 0);
+                Iterator<Map.Entry<String, Snapshot>> eldest = entries.entrySet().iterator();
+                while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+                    Map.Entry<String, Snapshot> entry = eldest.next();
+                    bytes -= entry.getValue().weight();
+                    eldest.remove();
+                    evictions.increment();
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        void remove(String key) {
+            lock.lock();
+            try {
+                Snapshot removed = entries.remove(key);
+                if (removed != null) {
+                    bytes -= removed.weight();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        int clear() {
+            lock.lock();
+            try {
+                int size = entries.size();
+                entries.clear();
+                bytes = 0;
+                return size;
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        long weight() {
+            lock.lock();
+            try {
+                return bytes;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Immutable copy of an account's committed state.
+     */
+    private record Snapshot(Long id, String accountNumber, String accountHolder, BigDecimal balance,
+                            Account.AccountType accountType, Long version, int balanceStripes) {
+        
+        static Snapshot of(Account account) {
+            return new Snapshot(account.getId(), account.getAccountNumber(), account.getAccountHolder(),
+                    account.getBalance(), account.getAccountType(), account.getVersion(),
+                    account.getBalanceStripes());
+        }
+        
+        Account toAccount() {
+            Account account = new Account(accountNumber, accountHolder, balance, accountType);
+            account.setId(id);
+            account.setVersion(version);
+            account.setBalanceStripes(balanceStripes);
+            return account;
+        }
+        
+        /**
+         * Rough heap size: the snapshot, its map entry, the key and the strings
+         * (the key and the snapshot each hold an account number).
+         */
+        long weight() {
+            return 160 + 2L * (2 * accountNumber.length() + accountHolder.length());
+        }
+    }
+}
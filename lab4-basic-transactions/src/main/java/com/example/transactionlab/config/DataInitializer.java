@@ -0,0 +1,46 @@
+package com.example.transactionlab.config;
+
+import com.example.transactionlab.entity.Account;
+import com.example.transactionlab.repository.AccountRepository;
+import com.example.transactionlab.service.LedgerService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Component
+public class DataInitializer implements CommandLineRunner {
+    
+    private final AccountRepository accountRepository;
+    private final LedgerService ledgerService;
+    
+    public DataInitializer(AccountRepository accountRepository, LedgerService ledgerService) {
+        this.accountRepository = accountRepository;
+        this.ledgerService = ledgerService;
+    }
+    
+    @Override
+    public void run(String... args) throws Exception {
+        // Create some test accounts
+        if (accountRepository.count() == 0) {
+            Account account1 = new Account("ACC001", "John Doe", 
+                    new BigDecimal("1000.00"), Account.AccountType.SAVINGS);
+            Account account2 = new Account("ACC002", "Jane Smith", 
+                    new BigDecimal("500.00"), Account.AccountType.CHECKING);
+            Account account3 = new Account("ACC003", "Bob Johnson", 
+                    new BigDecimal("2500.00"), Account.AccountType.BUSINESS);
+            
+            accountRepository.save(account1);
+            accountRepository.save(account2);
+            accountRepository.save(account3);
+            
+            // Opening balances, so that the ledger adds up to the account balances
+            for (Account account : List.of(account1, account2, account3)) {
+                ledgerService.recordOpening(account.getId(), account.getBalance());
+            }
+            
+            System.out.println("Test accounts created successfully!");
+        }
+    }
+}
\ No newline at end of file
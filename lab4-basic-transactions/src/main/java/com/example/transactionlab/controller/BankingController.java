@@ -0,0 +1,109 @@
+package com.example.transactionlab.controller;
+
+import com.example.transactionlab.entity.Account;
+import com.example.transactionlab.entity.TransactionRecord;
+import com.example.transactionlab.service.BankingService;
+import com.example.transactionlab.service.BatchTransferService;
+import com.example.transactionlab.service.LockingMode;
+import com.example.transactionlab.service.Statement;
+import com.example.transactionlab.service.TransferRequest;
+import com.example.transactionlab.service.TransferResult;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/banking")
+public class BankingController {
+    
+    private final BankingService bankingService;
+    private final BatchTransferService batchTransferService;
+    
+    public BankingController(BankingService bankingService, BatchTransferService batchTransferService) {
+        this.bankingService = bankingService;
+        this.batchTransferService = batchTransferService;
+    }
+    
+    @PostMapping("/accounts")
+    public ResponseEntity<Account> createAccount(@RequestBody Map<String, Object> request) {
+        String accountNumber = (String) request.get("accountNumber");
+        String accountHolder = (String) request.get("accountHolder");
+        BigDecimal initialBalance = new BigDecimal(request.get("initialBalance").toString());
+        Account.AccountType accountType = Account.AccountType.valueOf(
+                request.get("accountType").toString().toUpperCase());
+        
+        Account account = bankingService.createAccount(accountNumber, accountHolder, 
+                                                     initialBalance, accountType);
+        return ResponseEntity.ok(account);
+    }
+    
+    @GetMapping("/accounts")
+    public ResponseEntity<List<Account>> getAllAccounts() {
+        return ResponseEntity.ok(bankingService.getAllAccounts());
+    }
+    
+    @GetMapping("/accounts/{accountNumber}")
+    public ResponseEntity<Account> getAccount(@PathVariable String accountNumber) {
+        return ResponseEntity.ok(bankingService.getAccount(accountNumber));
+    }
+    
+    @PostMapping("/transfer")
+    public ResponseEntity<String> transferMoney(@RequestBody Map<String, Object> request) {
+        String fromAccount = (String) request.get("fromAccount");
+        String toAccount = (String) request.get("toAccount");
+        BigDecimal amount = new BigDecimal(request.get("amount").toString());
+        // Optional: PESSIMISTIC or OPTIMISTIC, defaults to banking.locking-mode
+        LockingMode lockingMode = request.get("lockingMode") != null
+                ? LockingMode.valueOf(request.get("lockingMode").toString().toUpperCase()) : null;
+        
+        bankingService.transferMoney(fromAccount, toAccount, amount, lockingMode);
+        return ResponseEntity.ok("Transfer completed successfully");
+    }
+    
+    @PostMapping("/transfers/batch")
+    public ResponseEntity<Map<String, Object>> transferAll(@RequestBody List<TransferRequest> transfers) {
+        List<TransferResult> results = batchTransferService.transferAll(transfers);
+        long completed = results.stream()
+                .filter(result -> result.status() == TransferResult.Status.COMPLETED)
+                .count();
+        
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("total", results.size());
+        response.put("completed", completed);
+        response.put("failed", results.size() - completed);
+        response.put("results", results);
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/accounts/{accountNumber}/transactions")
+    public ResponseEntity<List<TransactionRecord>> getTransactionHistory(@PathVariable String accountNumber) {
+        return ResponseEntity.ok(bankingService.getTransactionHistory(accountNumber));
+    }
+    
+    @GetMapping("/accounts/{accountNumber}/statement")
+    public ResponseEntity<Statement> getStatement(
+            @PathVariable String accountNumber,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "1000") int limit) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        return ResponseEntity.ok(bankingService.getStatement(accountNumber, from, end, limit));
+    }
+    
+    @GetMapping("/accounts/{accountNumber}/balance")
+    public ResponseEntity<Map<String, Object>> getBalanceAt(
+            @PathVariable String accountNumber,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("accountNumber", accountNumber);
+        response.put("at", at);
+        response.put("balance", bankingService.getBalanceAt(accountNumber, at));
+        return ResponseEntity.ok(response);
+    }
+}
\ No newline at end of file
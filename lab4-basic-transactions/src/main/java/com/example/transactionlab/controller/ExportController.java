@@ -0,0 +1,118 @@
+package com.example.transactionlab.controller;
+
+import com.example.transactionlab.service.ExportFormat;
+import com.example.transactionlab.service.ExportService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams whole tables as CSV or NDJSON, gzip-compressed when the client
+ * accepts it. The response is written on an async request thread while the
+ * rows are read (see {@link ExportService}).
+ */
+@RestController
+@RequestMapping("/api/banking/export")
+public class ExportController {
+    
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    
+    private final ExportService exportService;
+    
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+    
+    @GetMapping("/accounts")
+    public ResponseEntity<StreamingResponseBody> exportAccounts(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportFormat exportFormat = parseFormat(format);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        return stream("accounts", exportFormat, gzip, out -> exportService.exportAccounts(exportFormat, out));
+    }
+    
+    @GetMapping("/transactions")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportFormat exportFormat = parseFormat(format);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        return stream("transactions", exportFormat, gzip, out -> exportService.exportTransactions(exportFormat, out));
+    }
+    
+    private ResponseEntity<StreamingResponseBody> stream(String name, ExportFormat format, boolean gzip,
+                                                         StreamingResponseBody export) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"));
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(name + "." + format.getExtension())
+                .build());
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        
+        StreamingResponseBody body = out -> {
+            if (!gzip) {
+                export.writeTo(out);
+                return;
+            }
+            // sync flush, so every periodic flush of the export reaches the client
+            GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE, true);
+            export.writeTo(compressed);
+            compressed.finish();
+        };
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+    
+    private static ExportFormat parseFormat(String format) {
+        try {
+            return ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown export format: " + format + " (use csv or ndjson)");
+        }
+    }
+    
+    /**
+     * True if Accept-Encoding allows gzip: listed as gzip (or x-gzip) with a
+     * q-value above 0, or not listed but allowed by "*". "gzip;q=0" refuses it.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = quality;
+            } else if (coding.equals("*")) {
+                any = quality;
+            }
+        }
+        return gzip != null ? gzip > 0 : any != null && any > 0;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.transactionlab.endpoints;
+
+import com.example.transactionlab.cache.AccountCache;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes the AccountCache statistics and allows the cache to be cleared.
+ */
+@Component
+@Endpoint(id = "accountcache")
+public class AccountCacheEndpoint {
+    
+    private final AccountCache cache;
+    
+    public AccountCacheEndpoint(AccountCache cache) {
+        this.cache = cache;
+    }
+    
+    @ReadOperation
+    public Map<String, Object> getStats() {
+        long lookups = cache.getHits() + cache.getMisses();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxEntries", cache.getMaxEntries());
+        stats.put("maxBytes", cache.getMaxBytes());
+        stats.put("size", cache.getSize());
+        stats.put("weightBytes", cache.getWeightBytes());
+        stats.put("hits", cache.getHits());
+        stats.put("misses", cache.getMisses());
+        stats.put("hitRate", lookups > 0 ? (double) cache.getHits() / lookups : 0.0);
+        stats.put("bypassed", cache.getBypassed());
+        stats.put("staleLoads", cache.getStaleLoads());
+        stats.put("invalidations", cache.getInvalidations());
+        stats.put("evictions", cache.getEvictions());
+        return stats;
+    }
+    
+    @DeleteOperation
+    public Map<String, Object> clear() {
+        return Map.of("cleared", cache.clear());
+    }
+}
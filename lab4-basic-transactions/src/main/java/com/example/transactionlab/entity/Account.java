@@ -28,13 +28,18 @@ public class Account {
     @Enumerated(EnumType.STRING)
     private AccountType accountType;
     
+    // Bumped on every update; lets transfers detect concurrent changes without locking
+    @Version
+    private Long version;
+    
+    // Number of balance stripes; 0 keeps the whole balance in this row
+    @Column(nullable = false)
+    private int balanceStripes;
+    
     public enum AccountType {
         SAVINGS, CHECKING, BUSINESS
     }
     
-    // TODO 1: Add constructors
-    // TODO 2: Uncomment the following constructors:
-    /*
     public Account() {}
     
     public Account(String accountNumber, String accountHolder, BigDecimal balance, AccountType accountType) {
@@ -43,11 +48,7 @@ public class Account {
         this.balance = balance;
         this.accountType = accountType;
     }
-    */
     
-    // TODO 3: Add getters and setters
-    // TODO 4: Uncomment the following getters and setters:
-    /*
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     
@@ -62,5 +63,10 @@ public class Account {
     
     public AccountType getAccountType() { return accountType; }
     public void setAccountType(AccountType accountType) { this.accountType = accountType; }
-    */
+    
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    
+    public int getBalanceStripes() { return balanceStripes; }
+    public void setBalanceStripes(int balanceStripes) { this.balanceStripes = balanceStripes; }
 } 
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.example.transactionlab.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+
+/**
+ * One slice of a striped account's balance. Credits go to a random stripe,
+ * so concurrent credits to the same account lock different rows; the
+ * account's balance is its own balance column plus the sum of its stripes.
+ */
+@Entity
+@Table(name = "account_balance_stripes",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "stripe"}))
+public class AccountBalanceStripe {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+    
+    @Column(nullable = false)
+    private int stripe;
+    
+    @Column(nullable = false)
+    private BigDecimal balance;
+    
+    // Constructors
+    public AccountBalanceStripe() {}
+    
+    public AccountBalanceStripe(Long accountId, int stripe) {
+        this.accountId = accountId;
+        this.stripe = stripe;
+        this.balance = BigDecimal.ZERO;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getAccountId() { return accountId; }
+    public void setAccountId(Long accountId) { this.accountId = accountId; }
+    
+    public int getStripe() { return stripe; }
+    public void setStripe(int stripe) { this.stripe = stripe; }
+    
+    public BigDecimal getBalance() { return balance; }
+    public void setBalance(BigDecimal balance) { this.balance = balance; }
+}
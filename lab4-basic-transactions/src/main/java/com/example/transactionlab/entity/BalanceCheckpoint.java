@@ -0,0 +1,52 @@
+package com.example.transactionlab.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An account's balance as of a point in time: the sum of all its ledger
+ * entries with a timestamp up to and including asOf. Balances at later times
+ * only need the entries after the checkpoint.
+ */
+@Entity
+@Table(name = "balance_checkpoints", indexes = {
+        @Index(name = "idx_checkpoint_account_time", columnList = "account_id, as_of")
+})
+public class BalanceCheckpoint {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+    
+    @Column(name = "as_of", nullable = false)
+    private LocalDateTime asOf;
+    
+    @Column(nullable = false)
+    private BigDecimal balance;
+    
+    // Constructors
+    public BalanceCheckpoint() {}
+    
+    public BalanceCheckpoint(Long accountId, LocalDateTime asOf, BigDecimal balance) {
+        this.accountId = accountId;
+        this.asOf = asOf;
+        this.balance = balance;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getAccountId() { return accountId; }
+    public void setAccountId(Long accountId) { this.accountId = accountId; }
+    
+    public LocalDateTime getAsOf() { return asOf; }
+    public void setAsOf(LocalDateTime asOf) { this.asOf = asOf; }
+    
+    public BigDecimal getBalance() { return balance; }
+    public void setBalance(BigDecimal balance) { this.balance = balance; }
+}
@@ -0,0 +1,69 @@
+package com.example.transactionlab.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One movement on one account: positive for money in, negative for money out.
+ * Entries are only ever inserted; an account's balance at any time is the sum
+ * of its entries up to then (see {@link BalanceCheckpoint} for the shortcut).
+ */
+@Entity
+@Table(name = "ledger_entries", indexes = {
+        @Index(name = "idx_ledger_account_time", columnList = "account_id, timestamp"),
+        @Index(name = "idx_ledger_time", columnList = "timestamp")
+})
+public class LedgerEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+    
+    // The other side of a transfer, null for deposits
+    @Column(name = "counterparty_account_id")
+    private Long counterpartyAccountId;
+    
+    @Column(nullable = false)
+    private BigDecimal amount;
+    
+    @Enumerated(EnumType.STRING)
+    private TransactionRecord.TransactionType transactionType;
+    
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+    
+    // Constructors
+    public LedgerEntry() {}
+    
+    public LedgerEntry(Long accountId, Long counterpartyAccountId, BigDecimal amount,
+                       TransactionRecord.TransactionType transactionType, LocalDateTime timestamp) {
+        this.accountId = accountId;
+        this.counterpartyAccountId = counterpartyAccountId;
+        this.amount = amount;
+        this.transactionType = transactionType;
+        this.timestamp = timestamp;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getAccountId() { return accountId; }
+    public void setAccountId(Long accountId) { this.accountId = accountId; }
+    
+    public Long getCounterpartyAccountId() { return counterpartyAccountId; }
+    public void setCounterpartyAccountId(Long counterpartyAccountId) { this.counterpartyAccountId = counterpartyAccountId; }
+    
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    
+    public TransactionRecord.TransactionType getTransactionType() { return transactionType; }
+    public void setTransactionType(TransactionRecord.TransactionType transactionType) { this.transactionType = transactionType; }
+    
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+}
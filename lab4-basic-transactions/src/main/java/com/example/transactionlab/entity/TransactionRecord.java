@@ -0,0 +1,64 @@
+package com.example.transactionlab.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "transaction_records")
+public class TransactionRecord {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne
+    @JoinColumn(name = "from_account_id")
+    private Account fromAccount;
+    
+    @ManyToOne
+    @JoinColumn(name = "to_account_id")
+    private Account toAccount;
+    
+    @Column(nullable = false)
+    private BigDecimal amount;
+    
+    @Enumerated(EnumType.STRING)
+    private TransactionType transactionType;
+    
+    private LocalDateTime timestamp;
+    
+    public enum TransactionType {
+        TRANSFER, DEPOSIT, WITHDRAWAL
+    }
+    
+    // Constructors
+    public TransactionRecord() {}
+    
+    public TransactionRecord(Account fromAccount, Account toAccount, BigDecimal amount, TransactionType transactionType) {
+        this.fromAccount = fromAccount;
+        this.toAccount = toAccount;
+        this.amount = amount;
+        this.transactionType = transactionType;
+        this.timestamp = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Account getFromAccount() { return fromAccount; }
+    public void setFromAccount(Account fromAccount) { this.fromAccount = fromAccount; }
+    
+    public Account getToAccount() { return toAccount; }
+    public void setToAccount(Account toAccount) { this.toAccount = toAccount; }
+    
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    
+    public TransactionType getTransactionType() { return transactionType; }
+    public void setTransactionType(TransactionType transactionType) { this.transactionType = transactionType; }
+    
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.example.transactionlab.repository;
+
+import com.example.transactionlab.entity.AccountBalanceStripe;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface AccountBalanceStripeRepository extends JpaRepository<AccountBalanceStripe, Long> {
+    
+    @Query("SELECT new com.example.transactionlab.repository.StripeBalance(s.id, s.balance) "
+            + "FROM AccountBalanceStripe s WHERE s.accountId = :accountId ORDER BY s.stripe")
+    List<StripeBalance> findBalances(@Param("accountId") Long accountId);
+    
+    @Query("SELECT COALESCE(SUM(s.balance), 0) FROM AccountBalanceStripe s WHERE s.accountId = :accountId")
+    BigDecimal sumBalances(@Param("accountId") Long accountId);
+    
+    // Native SQL: Hibernate renders "balance + :amount" with an invalid numeric cast on H2
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE account_balance_stripes SET balance = balance + :amount "
+            + "WHERE account_id = :accountId AND stripe = :stripe", nativeQuery = true)
+    int addToStripe(@Param("accountId") Long accountId, @Param("stripe") int stripe,
+                    @Param("amount") BigDecimal amount);
+    
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE account_balance_stripes SET balance = balance - :amount WHERE id = :id",
+            nativeQuery = true)
+    int subtractFromStripe(@Param("id") Long id, @Param("amount") BigDecimal amount);
+}
@@ -0,0 +1,52 @@
+package com.example.transactionlab.repository;
+
+import com.example.transactionlab.entity.Account;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+public interface AccountRepository extends JpaRepository<Account, Long> {
+    
+    Optional<Account> findByAccountNumber(String accountNumber);
+    
+    @Query("SELECT a.balanceStripes FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<Integer> findBalanceStripes(@Param("accountNumber") String accountNumber);
+    
+    /**
+     * The account and its stripe total from one statement, so that both come
+     * from the same committed state.
+     */
+    @Query("SELECT new com.example.transactionlab.repository.AccountTotal(a, "
+            + "(SELECT COALESCE(SUM(s.balance), 0) FROM AccountBalanceStripe s WHERE s.accountId = a.id)) "
+            + "FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<AccountTotal> findTotalByAccountNumber(@Param("accountNumber") String accountNumber);
+    
+    @Query("SELECT new com.example.transactionlab.repository.AccountTotal(a, "
+            + "(SELECT COALESCE(SUM(s.balance), 0) FROM AccountBalanceStripe s WHERE s.accountId = a.id)) "
+            + "FROM Account a")
+    List<AccountTotal> findAllTotals();
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<Account> findByAccountNumberWithLock(@Param("accountNumber") String accountNumber);
+    
+    @Query("SELECT a.version FROM Account a WHERE a.id = :id")
+    Long findVersion(@Param("id") Long id);
+    
+    /**
+     * Sets the balance only if the row still has the given version, bumping
+     * the version. Returns 0 if another transaction changed the row first.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = :balance, a.version = a.version + 1 "
+            + "WHERE a.id = :id AND a.version = :version")
+    int updateBalanceIfVersion(@Param("id") Long id, @Param("balance") BigDecimal balance,
+                               @Param("version") Long version);
+}
\ No newline at end of file
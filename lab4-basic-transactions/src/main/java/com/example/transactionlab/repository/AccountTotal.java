@@ -0,0 +1,11 @@
+package com.example.transactionlab.repository;
+
+import com.example.transactionlab.entity.Account;
+
+import java.math.BigDecimal;
+
+/**
+ * An account together with the sum of its stripes, both read by one statement.
+ */
+public record AccountTotal(Account account, BigDecimal stripeTotal) {
+}
@@ -0,0 +1,17 @@
+package com.example.transactionlab.repository;
+
+import com.example.transactionlab.entity.BalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+    
+    Optional<BalanceCheckpoint> findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(Long accountId,
+                                                                                       LocalDateTime at);
+    
+    @Query("SELECT MAX(c.asOf) FROM BalanceCheckpoint c")
+    Optional<LocalDateTime> findLatestAsOf();
+}
@@ -0,0 +1,33 @@
+package com.example.transactionlab.repository;
+
+import com.example.transactionlab.entity.LedgerEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+    
+    /**
+     * Entries of one account with after &lt; timestamp &lt;= upTo; served by the
+     * (account_id, timestamp) index, so the cost is the size of the range.
+     */
+    @Query("SELECT new com.example.transactionlab.repository.LedgerTotals(COUNT(e), COALESCE(SUM(e.amount), 0)) "
+            + "FROM LedgerEntry e WHERE e.accountId = :accountId AND e.timestamp > :after AND e.timestamp <= :upTo")
+    LedgerTotals totalBetween(@Param("accountId") Long accountId,
+                              @Param("after") LocalDateTime after,
+                              @Param("upTo") LocalDateTime upTo);
+    
+    @Query("SELECT e FROM LedgerEntry e WHERE e.accountId = :accountId "
+            + "AND e.timestamp > :after AND e.timestamp <= :upTo ORDER BY e.timestamp, e.id")
+    List<LedgerEntry> findBetween(@Param("accountId") Long accountId,
+                                  @Param("after") LocalDateTime after,
+                                  @Param("upTo") LocalDateTime upTo,
+                                  Pageable pageable);
+    
+    @Query("SELECT DISTINCT e.accountId FROM LedgerEntry e WHERE e.timestamp > :after AND e.timestamp <= :upTo")
+    List<Long> findAccountIdsBetween(@Param("after") LocalDateTime after, @Param("upTo") LocalDateTime upTo);
+}
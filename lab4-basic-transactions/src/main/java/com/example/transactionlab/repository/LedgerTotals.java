@@ -0,0 +1,9 @@
+package com.example.transactionlab.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Number and sum of a range of ledger entries.
+ */
+public record LedgerTotals(long count, BigDecimal sum) {
+}
@@ -0,0 +1,9 @@
+package com.example.transactionlab.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Balance of one stripe, read without loading the entity.
+ */
+public record StripeBalance(Long id, BigDecimal balance) {
+}
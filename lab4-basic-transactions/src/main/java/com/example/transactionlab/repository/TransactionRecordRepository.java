@@ -0,0 +1,7 @@
+package com.example.transactionlab.repository;
+
+import com.example.transactionlab.entity.TransactionRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TransactionRecordRepository extends JpaRepository<TransactionRecord, Long> {
+}
\ No newline at end of file
@@ -0,0 +1,152 @@
+package com.example.transactionlab.service;
+
+import com.example.transactionlab.entity.Account;
+import com.example.transactionlab.entity.AccountBalanceStripe;
+import com.example.transactionlab.repository.AccountBalanceStripeRepository;
+import com.example.transactionlab.repository.AccountRepository;
+import com.example.transactionlab.repository.AccountTotal;
+import com.example.transactionlab.repository.StripeBalance;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Striped balances for hot accounts.
+ *
+ * A striped account keeps part of its balance in N stripe rows. A credit adds
+ * to one random stripe with a single relative UPDATE, without touching (or
+ * locking) the account row, so concurrent credits to the same account mostly
+ * lock different rows. A debit is taken from the account row; when that is
+ * short, the stripes are swept into it first.
+ *
+ * A sweep subtracts from each stripe exactly what it read, so credits that
+ * land in between are kept. Sweeps of one account never overlap: the caller
+ * holds the account row lock or writes the row with a version check.
+ *
+ * Lock order is account rows first, then stripes, which keeps striped
+ * transfers deadlock-free alongside unstriped ones.
+ */
+@Component
+public class BalanceStripes {
+    
+    private final AccountRepository accountRepository;
+    private final AccountBalanceStripeRepository stripeRepository;
+    private final int businessStripes;
+    // Stripe counts never change after an account is created
+    private final Map<String, Integer> stripeCounts = new ConcurrentHashMap<>();
+    
+    public BalanceStripes(AccountRepository accountRepository,
+                          AccountBalanceStripeRepository stripeRepository,
+                          @Value("${banking.striping.business-stripes:0}") int businessStripes) {
+        this.accountRepository = accountRepository;
+        this.stripeRepository = stripeRepository;
+        this.businessStripes = businessStripes;
+    }
+    
+    /**
+     * Stripes to give a new account of the given type; 0 means not striped.
+     */
+    public int stripesFor(Account.AccountType accountType) {
+        return accountType == Account.AccountType.BUSINESS ? businessStripes : 0;
+    }
+    
+    public void createStripes(Account account) {
+        List<AccountBalanceStripe> stripes = new ArrayList<>(account.getBalanceStripes());
+        for (int stripe = 0; stripe < account.getBalanceStripes(); stripe++) {
+            stripes.add(new AccountBalanceStripe(account.getId(), stripe));
+        }
+        stripeRepository.saveAll(stripes);
+        stripeCounts.put(account.getAccountNumber(), account.getBalanceStripes());
+    }
+    
+    /**
+     * Stripe count of an account, 0 if it is not striped or does not exist.
+     */
+    public int stripesOf(String accountNumber) {
+        Integer stripes = stripeCounts.get(accountNumber);
+        if (stripes != null) {
+            return stripes;
+        }
+        return accountRepository.findBalanceStripes(accountNumber)
+                .map(count -> {
+                    stripeCounts.put(accountNumber, count);
+                    return count;
+                })
+                .orElse(0);
+    }
+    
+    public void credit(Account account, BigDecimal amount) {
+        int stripe = ThreadLocalRandom.current().nextInt(account.getBalanceStripes());
+        stripeRepository.addToStripe(account.getId(), stripe, amount);
+    }
+    
+    /**
+     * Reads the stripes of an account for a sweep; {@link #total} gives the
+     * amount and {@link #sweep} moves it out of the stripes.
+     */
+    public List<StripeBalance> read(Account account) {
+        return stripeRepository.findBalances(account.getId());
+    }
+    
+    public static BigDecimal total(List<StripeBalance> stripes) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (StripeBalance stripe : stripes) {
+            total = total.add(stripe.balance());
+        }
+        return total;
+    }
+    
+    public void sweep(List<StripeBalance> stripes) {
+        for (StripeBalance stripe : stripes) {
+            if (stripe.balance().signum() != 0) {
+                stripeRepository.subtractFromStripe(stripe.id(), stripe.balance());
+            }
+        }
+    }
+    
+    /**
+     * The account carrying its full balance (account row plus stripes). The
+     * row and the stripes are read by one statement: read separately, a
+     * transfer committing in between would be counted twice or not at all.
+     */
+    public Optional<Account> findWithTotalBalance(String accountNumber) {
+        return accountRepository.findTotalByAccountNumber(accountNumber).map(BalanceStripes::withTotalBalance);
+    }
+    
+    public List<Account> findAllWithTotalBalances() {
+        List<AccountTotal> totals = accountRepository.findAllTotals();
+        List<Account> accounts = new ArrayList<>(totals.size());
+        for (AccountTotal total : totals) {
+            accounts.add(withTotalBalance(total));
+        }
+        return accounts;
+    }
+    
+    /**
+     * Copy of the account with the stripe total added; the managed entity is
+     * left untouched.
+     */
+    private static Account withTotalBalance(AccountTotal total) {
+        Account account = total.account();
+        if (account.getBalanceStripes() == 0) {
+            return account;
+        }
+        return copyWithBalance(account, account.getBalance().add(total.stripeTotal()));
+    }
+    
+    private static Account copyWithBalance(Account account, BigDecimal balance) {
+        Account copy = new Account(account.getAccountNumber(), account.getAccountHolder(),
+                balance, account.getAccountType());
+        copy.setId(account.getId());
+        copy.setVersion(account.getVersion());
+        copy.setBalanceStripes(account.getBalanceStripes());
+        return copy;
+    }
+}
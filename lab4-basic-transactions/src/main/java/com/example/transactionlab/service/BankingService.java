@@ -1,13 +1,23 @@
 package com.example.transactionlab.service;
 
+import com.example.transactionlab.cache.AccountCache;
 import com.example.transactionlab.entity.Account;
 import com.example.transactionlab.entity.TransactionRecord;
 import com.example.transactionlab.repository.AccountRepository;
+import com.example.transactionlab.repository.StripeBalance;
 import com.example.transactionlab.repository.TransactionRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -15,102 +25,224 @@ public class BankingService {
     
     private final AccountRepository accountRepository;
     private final TransactionRecordRepository transactionRecordRepository;
+    private final BalanceStripes balanceStripes;
+    private final AccountCache accountCache;
+    private final LedgerService ledgerService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final LockingMode defaultLockingMode;
     
     public BankingService(AccountRepository accountRepository, 
-                         TransactionRecordRepository transactionRecordRepository) {
+                         TransactionRecordRepository transactionRecordRepository,
+                         BalanceStripes balanceStripes,
+                         AccountCache accountCache,
+                         LedgerService ledgerService,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${banking.locking-mode:PESSIMISTIC}") LockingMode defaultLockingMode) {
         this.accountRepository = accountRepository;
         this.transactionRecordRepository = transactionRecordRepository;
+        this.balanceStripes = balanceStripes;
+        this.accountCache = accountCache;
+        this.ledgerService = ledgerService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.defaultLockingMode = defaultLockingMode;
     }
     
+    /**
+     * Moves money between two accounts using the configured locking mode
+     * (banking.locking-mode).
+     */
+    @Retryable(retryFor = ConcurrencyFailureException.class,
+            maxAttemptsExpression = "${banking.retry.max-attempts:4}",
+            backoff = @Backoff(delayExpression = "${banking.retry.initial-delay:20}",
+                    maxDelayExpression = "${banking.retry.max-delay:500}",
+                    multiplierExpression = "${banking.retry.multiplier:2}",
+                    random = true))
     @Transactional
     public void transferMoney(String fromAccountNumber, String toAccountNumber, BigDecimal amount) {
-        // TODO 5: Implement money transfer with transaction management
-        // 1. Validate the transfer amount
-        // 2. Find accounts with pessimistic locking
-        // 3. Check sufficient balance
-        // 4. Perform the transfer
-        // 5. Save updated accounts
-        // 6. Record the transaction
-        
-        // TODO 6: Uncomment the following code to implement the transfer:
-        /*
+        transfer(fromAccountNumber, toAccountNumber, amount, defaultLockingMode);
+    }
+    
+    /**
+     * Moves money between two accounts.
+     *
+     * PESSIMISTIC locks both rows, in account number order whatever the
+     * direction of the transfer, so opposing transfers queue up instead of
+     * deadlocking. OPTIMISTIC reads both rows without locks and writes them
+     * with updates that only apply if the row version is unchanged.
+     *
+     * Credits to a striped account go to one of its stripes instead of the
+     * account row (see {@link BalanceStripes}).
+     *
+     * Lost lock races (lock timeout, deadlock victim) and version conflicts
+     * are retried in a new transaction with jittered exponential backoff.
+     */
+    @Retryable(retryFor = ConcurrencyFailureException.class,
+            maxAttemptsExpression = "${banking.retry.max-attempts:4}",
+            backoff = @Backoff(delayExpression = "${banking.retry.initial-delay:20}",
+                    maxDelayExpression = "${banking.retry.max-delay:500}",
+                    multiplierExpression = "${banking.retry.multiplier:2}",
+                    random = true))
+    @Transactional
+    public void transferMoney(String fromAccountNumber, String toAccountNumber, BigDecimal amount,
+                              LockingMode lockingMode) {
+        transfer(fromAccountNumber, toAccountNumber, amount, lockingMode != null ? lockingMode : defaultLockingMode);
+    }
+    
+    private void transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount,
+                          LockingMode lockingMode) {
         // Validate amount
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Transfer amount must be positive");
         }
         
-        // Find accounts with pessimistic locking to prevent race conditions
-        Account fromAccount = accountRepository.findByAccountNumberWithLock(fromAccountNumber)
-                .orElseThrow(() -> new RuntimeException("From account not found: " + fromAccountNumber));
+        // A credit to a striped account goes to one of its stripes and leaves the account row alone
+        boolean sameAccount = fromAccountNumber.equals(toAccountNumber);
+        boolean creditStripe = !sameAccount && balanceStripes.stripesOf(toAccountNumber) > 0;
+        boolean fromFirst = fromAccountNumber.compareTo(toAccountNumber) <= 0;
         
-        Account toAccount = accountRepository.findByAccountNumberWithLock(toAccountNumber)
-                .orElseThrow(() -> new RuntimeException("To account not found: " + toAccountNumber));
+        Account fromAccount;
+        Account toAccount;
+        if (lockingMode == LockingMode.OPTIMISTIC) {
+            // Read without locks; the version-checked updates below catch concurrent changes
+            fromAccount = findAccount(fromAccountNumber, "From");
+            toAccount = findAccount(toAccountNumber, "To");
+        } else if (creditStripe) {
+            fromAccount = lockAccount(fromAccountNumber, "From");
+            toAccount = findAccount(toAccountNumber, "To");
+        } else if (fromFirst) {
+            // Find accounts with pessimistic locking to prevent race conditions,
+            // always locking the lower account number first to avoid deadlocks
+            fromAccount = lockAccount(fromAccountNumber, "From");
+            toAccount = lockAccount(toAccountNumber, "To");
+        } else {
+            toAccount = lockAccount(toAccountNumber, "To");
+            fromAccount = lockAccount(fromAccountNumber, "From");
+        }
         
-        // Check sufficient balance
-        if (fromAccount.getBalance().compareTo(amount) < 0) {
+        // Check sufficient balance, sweeping in the stripes of a striped account if needed
+        BigDecimal available = fromAccount.getBalance();
+        List<StripeBalance> swept = List.of();
+        if (available.compareTo(amount) < 0 && fromAccount.getBalanceStripes() > 0) {
+            swept = balanceStripes.read(fromAccount);
+            available = available.add(BalanceStripes.total(swept));
+        }
+        if (available.compareTo(amount) < 0) {
+            // Unlocked, the row may predate a sweep whose stripes were read after it: retry on that view
+            if (lockingMode == LockingMode.OPTIMISTIC
+                    && !fromAccount.getVersion().equals(accountRepository.findVersion(fromAccount.getId()))) {
+                throw new ObjectOptimisticLockingFailureException(Account.class, fromAccount.getId());
+            }
             throw new RuntimeException("Insufficient balance in account: " + fromAccountNumber);
         }
         
-        // Perform the transfer
-        fromAccount.setBalance(fromAccount.getBalance().subtract(amount));
-        toAccount.setBalance(toAccount.getBalance().add(amount));
+        // Perform the transfer and save the updated accounts (rows first, in account number order)
+        BigDecimal fromBalance = sameAccount ? available : available.subtract(amount);
+        if (lockingMode == LockingMode.OPTIMISTIC) {
+            // Each update only applies if nobody changed the row since it was read
+            if (creditStripe || sameAccount || fromFirst) {
+                updateIfUnchanged(fromAccount, fromBalance);
+            }
+            if (!creditStripe && !sameAccount) {
+                updateIfUnchanged(toAccount, toAccount.getBalance().add(amount));
+            }
+            if (!creditStripe && !sameAccount && !fromFirst) {
+                updateIfUnchanged(fromAccount, fromBalance);
+            }
+        } else {
+            fromAccount.setBalance(fromBalance);
+            accountRepository.save(fromAccount);
+            if (!creditStripe && !sameAccount) {
+                toAccount.setBalance(toAccount.getBalance().add(amount));
+                accountRepository.save(toAccount);
+            }
+        }
         
-        // Save the updated accounts
-        accountRepository.save(fromAccount);
-        accountRepository.save(toAccount);
+        // Then stripes, also in account number order
+        if (creditStripe && !fromFirst) {
+            balanceStripes.credit(toAccount, amount);
+        }
+        balanceStripes.sweep(swept);
+        if (creditStripe && fromFirst) {
+            balanceStripes.credit(toAccount, amount);
+        }
         
         // Record the transaction
         TransactionRecord transaction = new TransactionRecord(
                 fromAccount, toAccount, amount, TransactionRecord.TransactionType.TRANSFER);
         transactionRecordRepository.save(transaction);
-        */
+        ledgerService.recordTransfer(fromAccount.getId(), toAccount.getId(), amount, transaction.getTimestamp());
+        
+        // Cached balances are dropped only once the new ones are committed
+        accountCache.evictAfterCommit(List.of(fromAccountNumber, toAccountNumber));
     }
     
-    @Transactional(readOnly = true)
-    public Account getAccount(String accountNumber) {
-        // TODO 7: Implement account retrieval with read-only transaction
-        // TODO 8: Uncomment the following code:
-        /*
+    private void updateIfUnchanged(Account account, BigDecimal balance) {
+        if (accountRepository.updateBalanceIfVersion(account.getId(), balance, account.getVersion()) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Account.class, account.getId());
+        }
+    }
+    
+    private Account findAccount(String accountNumber, String role) {
         return accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
-        */
-        
-        // Placeholder return - replace with actual implementation
-        throw new RuntimeException("Account retrieval not implemented yet");
+                .orElseThrow(() -> new RuntimeException(role + " account not found: " + accountNumber));
+    }
+    
+    private Account lockAccount(String accountNumber, String role) {
+        return accountRepository.findByAccountNumberWithLock(accountNumber)
+                .orElseThrow(() -> new RuntimeException(role + " account not found: " + accountNumber));
+    }
+    
+    /**
+     * Served from the {@link AccountCache} when possible; a miss loads the
+     * account in a read-only transaction. No transaction is started for a hit.
+     */
+    public Account getAccount(String accountNumber) {
+        return accountCache.get(accountNumber, () -> readOnlyTransaction.execute(status -> {
+            return balanceStripes.findWithTotalBalance(accountNumber)
+                    .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
+        }));
     }
     
-    @Transactional(readOnly = true)
     public List<Account> getAllAccounts() {
-        // TODO 9: Implement account list retrieval with read-only transaction
-        // TODO 10: Uncomment the following code:
-        /*
-        return accountRepository.findAll();
-        */
-        
-        // Placeholder return - replace with actual implementation
-        return List.of();
+        return accountCache.getAll(() -> readOnlyTransaction.execute(status ->
+                balanceStripes.findAllWithTotalBalances()));
     }
     
     @Transactional
     public Account createAccount(String accountNumber, String accountHolder, 
                                BigDecimal initialBalance, Account.AccountType accountType) {
-        // TODO 11: Implement account creation with transaction management
-        // 1. Check if account already exists
-        // 2. Create new account
-        // 3. Save and return the account
-        
-        // TODO 12: Uncomment the following code:
-        /*
         // Check if account already exists
         if (accountRepository.findByAccountNumber(accountNumber).isPresent()) {
             throw new RuntimeException("Account already exists: " + accountNumber);
         }
         
         Account account = new Account(accountNumber, accountHolder, initialBalance, accountType);
-        return accountRepository.save(account);
-        */
-        
-        // Placeholder return - replace with actual implementation
-        throw new RuntimeException("Account creation not implemented yet");
+        account.setBalanceStripes(balanceStripes.stripesFor(accountType));
+        account = accountRepository.save(account);
+        if (account.getBalanceStripes() > 0) {
+            balanceStripes.createStripes(account);
+        }
+        ledgerService.recordOpening(account.getId(), initialBalance);
+        accountCache.evictAfterCommit(List.of(accountNumber));
+        return account;
+    }
+    
+    @Transactional(readOnly = true)
+    public List<TransactionRecord> getTransactionHistory(String accountNumber) {
+        Account account = getAccount(accountNumber);
+        return transactionRecordRepository.findAll().stream()
+                .filter(t -> t.getFromAccount().getId().equals(account.getId())
+                        || t.getToAccount().getId().equals(account.getId()))
+                .toList();
+    }
+    
+    public Statement getStatement(String accountNumber, LocalDateTime from, LocalDateTime to, int limit) {
+        Account account = getAccount(accountNumber);
+        return ledgerService.statement(account.getId(), accountNumber, from, to, limit);
+    }
+    
+    public BigDecimal getBalanceAt(String accountNumber, LocalDateTime at) {
+        return ledgerService.balanceAt(getAccount(accountNumber).getId(), at);
     }
 } 
\ No newline at end of file
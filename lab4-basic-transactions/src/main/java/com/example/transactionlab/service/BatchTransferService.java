@@ -0,0 +1,197 @@
+package com.example.transactionlab.service;
+
+import com.example.transactionlab.cache.AccountCache;
+import com.example.transactionlab.entity.Account;
+import com.example.transactionlab.entity.TransactionRecord;
+import com.example.transactionlab.repository.AccountRepository;
+import com.example.transactionlab.repository.StripeBalance;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Applies large lists of transfers, such as a settlement run.
+ *
+ * Transfers are processed in chunks of banking.batch.chunk-size, one
+ * transaction per chunk. A chunk locks every account it touches up front, one
+ * row at a time in account number order, so concurrent chunks and single
+ * transfers cannot deadlock on each other. Balances are then moved in memory,
+ * the changed accounts are flushed as batched updates, and the transaction
+ * records and ledger entries are written with JDBC batch inserts. With the rows locked,
+ * credits to striped accounts simply go to the account row, and a striped
+ * account short of money has its stripes swept once per chunk.
+ *
+ * A transfer that cannot be applied (bad amount, unknown account, not enough
+ * money) is skipped and reported; the rest of its chunk still commits. A
+ * chunk that loses a lock race is retried like a single transfer (see
+ * banking.retry.*); if it still fails, all of its transfers are reported as
+ * FAILED.
+ */
+@Service
+public class BatchTransferService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BatchTransferService.class);
+    
+    private static final String INSERT_TRANSACTION_RECORD =
+            "INSERT INTO transaction_records (from_account_id, to_account_id, amount, transaction_type, timestamp) "
+                    + "VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_LEDGER_ENTRY =
+            "INSERT INTO ledger_entries (account_id, counterparty_account_id, amount, transaction_type, timestamp) "
+                    + "VALUES (?, ?, ?, ?, ?)";
+    
+    private final AccountRepository accountRepository;
+    private final BalanceStripes balanceStripes;
+    private final AccountCache accountCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final RetryTemplate retryTemplate;
+    private final int chunkSize;
+    
+    public BatchTransferService(AccountRepository accountRepository,
+                                BalanceStripes balanceStripes,
+                                AccountCache accountCache,
+                                JdbcTemplate jdbcTemplate,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${banking.batch.chunk-size:1000}") int chunkSize,
+                                @Value("${banking.retry.max-attempts:4}") int maxAttempts,
+                                @Value("${banking.retry.initial-delay:20}") long initialDelay,
+                                @Value("${banking.retry.max-delay:500}") long maxDelay,
+                                @Value("${banking.retry.multiplier:2}") double multiplier) {
+        this.accountRepository = accountRepository;
+        this.balanceStripes = balanceStripes;
+        this.accountCache = accountCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retryTemplate = RetryTemplate.builder()
+                .maxAttempts(maxAttempts)
+                .exponentialBackoff(initialDelay, multiplier, maxDelay, true)
+                .retryOn(ConcurrencyFailureException.class)
+                .build();
+        this.chunkSize = chunkSize;
+    }
+    
+    public List<TransferResult> transferAll(List<TransferRequest> transfers) {
+        List<TransferResult> results = new ArrayList<>(transfers.size());
+        for (int start = 0; start < transfers.size(); start += chunkSize) {
+            List<TransferRequest> chunk = transfers.subList(start, Math.min(start + chunkSize, transfers.size()));
+            try {
+                results.addAll(retryTemplate.execute(retry -> transactionTemplate.execute(status -> transferChunk(chunk))));
+            } catch (RuntimeException e) {
+                logger.warn("Transfer chunk at {} rolled back: {}", start, e.getMessage());
+                for (TransferRequest request : chunk) {
+                    results.add(TransferResult.of(request, TransferResult.Status.FAILED, e.getMessage()));
+                }
+            } finally {
+                // a long-lived persistence context (open-in-view) would otherwise keep every chunk's accounts
+                entityManager.clear();
+            }
+        }
+        return results;
+    }
+    
+    private List<TransferResult> transferChunk(List<TransferRequest> chunk) {
+        // Nothing below reads back an account change through a query, so skip the automatic flush
+        // before each one: it dirty-checks every account loaded so far, which is quadratic in the chunk
+        FlushModeType flushMode = entityManager.getFlushMode();
+        entityManager.setFlushMode(FlushModeType.COMMIT);
+        try {
+            return lockAndApply(chunk);
+        } finally {
+            entityManager.setFlushMode(flushMode);
+        }
+    }
+    
+    private List<TransferResult> lockAndApply(List<TransferRequest> chunk) {
+        TreeSet<String> accountNumbers = new TreeSet<>();
+        for (TransferRequest request : chunk) {
+            if (request.fromAccount() != null && request.toAccount() != null) {
+                accountNumbers.add(request.fromAccount());
+                accountNumbers.add(request.toAccount());
+            }
+        }
+        // one query per row: the order in which a single IN (...) FOR UPDATE locks its rows is up to the database
+        Map<String, Account> accounts = new HashMap<>();
+        for (String accountNumber : accountNumbers) {
+            accountRepository.findByAccountNumberWithLock(accountNumber)
+                    .ifPresent(account -> accounts.put(accountNumber, account));
+        }
+        
+        List<TransferResult> results = new ArrayList<>(chunk.size());
+        List<Object[]> records = new ArrayList<>(chunk.size());
+        List<Object[]> ledgerEntries = new ArrayList<>(2 * chunk.size());
+        Set<Long> swept = new HashSet<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (TransferRequest request : chunk) {
+            TransferResult result = apply(request, accounts, swept, records, ledgerEntries, now);
+            results.add(result);
+        }
+        
+        entityManager.flush();
+        if (!records.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION_RECORD, records);
+            jdbcTemplate.batchUpdate(INSERT_LEDGER_ENTRY, ledgerEntries);
+            accountCache.evictAfterCommit(accountNumbers);
+        }
+        return results;
+    }
+    
+    private TransferResult apply(TransferRequest request, Map<String, Account> accounts, Set<Long> swept,
+                                 List<Object[]> records, List<Object[]> ledgerEntries, Timestamp now) {
+        BigDecimal amount = request.amount();
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return TransferResult.of(request, TransferResult.Status.INVALID_AMOUNT, "Transfer amount must be positive");
+        }
+        Account fromAccount = accounts.get(request.fromAccount());
+        if (fromAccount == null) {
+            return TransferResult.of(request, TransferResult.Status.ACCOUNT_NOT_FOUND,
+                    "From account not found: " + request.fromAccount());
+        }
+        Account toAccount = accounts.get(request.toAccount());
+        if (toAccount == null) {
+            return TransferResult.of(request, TransferResult.Status.ACCOUNT_NOT_FOUND,
+                    "To account not found: " + request.toAccount());
+        }
+        if (fromAccount.getBalance().compareTo(amount) < 0 && fromAccount.getBalanceStripes() > 0
+                && swept.add(fromAccount.getId())) {
+            List<StripeBalance> stripes = balanceStripes.read(fromAccount);
+            balanceStripes.sweep(stripes);
+            fromAccount.setBalance(fromAccount.getBalance().add(BalanceStripes.total(stripes)));
+        }
+        if (fromAccount.getBalance().compareTo(amount) < 0) {
+            return TransferResult.of(request, TransferResult.Status.INSUFFICIENT_BALANCE,
+                    "Insufficient balance in account: " + request.fromAccount());
+        }
+        
+        fromAccount.setBalance(fromAccount.getBalance().subtract(amount));
+        toAccount.setBalance(toAccount.getBalance().add(amount));
+        records.add(new Object[] {fromAccount.getId(), toAccount.getId(), amount,
+                TransactionRecord.TransactionType.TRANSFER.name(), now});
+        ledgerEntries.add(new Object[] {fromAccount.getId(), toAccount.getId(), amount.negate(),
+                TransactionRecord.TransactionType.TRANSFER.name(), now});
+        ledgerEntries.add(new Object[] {toAccount.getId(), fromAccount.getId(), amount,
+                TransactionRecord.TransactionType.TRANSFER.name(), now});
+        return TransferResult.of(request, TransferResult.Status.COMPLETED, null);
+    }
+}
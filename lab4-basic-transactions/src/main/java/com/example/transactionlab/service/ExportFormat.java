@@ -0,0 +1,28 @@
+package com.example.transactionlab.service;
+
+/**
+ * File formats for exports. Both write one line per row.
+ */
+public enum ExportFormat {
+    
+    /**
+     * Comma-separated values with a header line.
+     */
+    CSV("text/csv", "csv"),
+    
+    /**
+     * Newline-delimited JSON: one JSON object per line.
+     */
+    NDJSON("application/x-ndjson", "ndjson");
+    
+    private final String contentType;
+    private final String extension;
+    
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+    
+    public String getContentType() { return contentType; }
+    public String getExtension() { return extension; }
+}
@@ -0,0 +1,257 @@
+package com.example.transactionlab.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Writes whole tables as CSV or NDJSON without holding them in memory.
+ *
+ * Rows are read with plain JDBC through a forward-only, read-only cursor that
+ * fetches banking.export.fetch-size rows per round trip, and each row is
+ * written out as soon as it is read. No entities are created, so there is no
+ * persistence context to grow or clear; heap use is one fetch plus the output
+ * buffer whatever the size of the table. The output is flushed every
+ * banking.export.flush-rows rows so the client receives the file while it is
+ * still being produced.
+ *
+ * The query runs in a read-only transaction: some drivers (PostgreSQL for
+ * one) only honour the fetch size with auto-commit off and would otherwise
+ * load the whole result at once.
+ */
+@Service
+public class ExportService {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private static final Export ACCOUNTS = new Export(
+            "SELECT a.id, a.account_number, a.account_holder, a.balance + COALESCE(s.total, 0), a.account_type "
+                    + "FROM accounts a LEFT JOIN (SELECT account_id, SUM(balance) AS total "
+                    + "FROM account_balance_stripes GROUP BY account_id) s ON s.account_id = a.id "
+                    + "ORDER BY a.id",
+            List.of("id", "accountNumber", "accountHolder", "balance", "accountType"));
+    
+    private static final Export TRANSACTIONS = new Export(
+            "SELECT t.id, f.account_number, r.account_number, t.amount, t.transaction_type, t.timestamp "
+                    + "FROM transaction_records t "
+                    + "LEFT JOIN accounts f ON f.id = t.from_account_id "
+                    + "LEFT JOIN accounts r ON r.id = t.to_account_id "
+                    + "ORDER BY t.id",
+            List.of("id", "fromAccount", "toAccount", "amount", "transactionType", "timestamp"));
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+    private final int flushRows;
+    
+    public ExportService(JdbcTemplate jdbcTemplate,
+                         ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${banking.export.fetch-size:1000}") int fetchSize,
+                         @Value("${banking.export.flush-rows:1000}") int flushRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+        this.flushRows = flushRows;
+    }
+    
+    /**
+     * Writes all accounts, with their stripes added to the balance. Returns
+     * the number of rows written.
+     */
+    public long exportAccounts(ExportFormat format, OutputStream out) throws IOException {
+        return export(ACCOUNTS, format, out);
+    }
+    
+    /**
+     * Writes all transaction records in id order. Returns the number of rows
+     * written.
+     */
+    public long exportTransactions(ExportFormat format, OutputStream out) throws IOException {
+        return export(TRANSACTIONS, format, out);
+    }
+    
+    private long export(Export export, ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        RowWriter rows = format == ExportFormat.CSV ? new CsvRowWriter(writer) : new JsonRowWriter(writer);
+        try {
+            Long written = readOnlyTransaction.execute(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(export.sql(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, (ResultSetExtractor<Long>) resultSet -> writeRows(resultSet, export.columns(), rows)));
+            rows.close();
+            return written != null ? written : 0;
+        } catch (UncheckedIOException e) {
+            // most likely the client went away; stop reading and let the caller see the real cause
+            throw e.getCause();
+        }
+    }
+    
+    private long writeRows(ResultSet resultSet, List<String> columns, RowWriter rows) throws SQLException {
+        Object[] values = new Object[columns.size()];
+        long count = 0;
+        try {
+            rows.writeHeader(columns);
+            while (resultSet.next()) {
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = resultSet.getObject(i + 1);
+                }
+                rows.writeRow(columns, values);
+                if (++count % flushRows == 0) {
+                    rows.flush();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+    
+    private record Export(String sql, List<String> columns) {
+    }
+    
+    private interface RowWriter {
+        
+        void writeHeader(List<String> columns) throws IOException;
+        
+        void writeRow(List<String> columns, Object[] values) throws IOException;
+        
+        void flush() throws IOException;
+        
+        void close() throws IOException;
+    }
+    
+    private static final class CsvRowWriter implements RowWriter {
+        
+        private final Writer writer;
+        
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+        
+        @Override
+        public void writeHeader(List<String> columns) throws IOException {
+            writeLine(columns.toArray());
+        }
+        
+        @Override
+        public void writeRow(List<String> columns, Object[] values) throws IOException {
+            writeLine(values);
+        }
+        
+        private void writeLine(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeField(values[i]);
+            }
+            writer.write("\r\n");
+        }
+        
+        private void writeField(Object value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            String text = value instanceof BigDecimal decimal ? decimal.toPlainString()
+                    : value instanceof Timestamp timestamp ? timestamp.toLocalDateTime().toString()
+                    : value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                writer.write(text);
+                return;
+            }
+            // RFC 4180: quote the field and double any quotes inside it
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+    
+    private final class JsonRowWriter implements RowWriter {
+        
+        private final JsonGenerator generator;
+        private boolean empty = true;
+        
+        JsonRowWriter(Writer writer) throws IOException {
+            // the writer is shared with the caller's stream, which is closed by the container
+            this.generator = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        }
+        
+        @Override
+        public void writeHeader(List<String> columns) {
+        }
+        
+        @Override
+        public void writeRow(List<String> columns, Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                generator.writeFieldName(columns.get(i));
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof BigDecimal decimal) {
+                    generator.writeNumber(decimal);
+                } else if (value instanceof Number number) {
+                    generator.writeNumber(number.longValue());
+                } else if (value instanceof Timestamp timestamp) {
+                    generator.writeString(timestamp.toLocalDateTime().toString());
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            empty = false;
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            // terminate the last line too, as NDJSON readers expect
+            if (!empty) {
+                generator.writeRaw('\n');
+            }
+            generator.close();
+        }
+    }
+}
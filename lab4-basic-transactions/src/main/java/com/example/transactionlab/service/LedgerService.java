@@ -0,0 +1,160 @@
+package com.example.transactionlab.service;
+
+import com.example.transactionlab.entity.BalanceCheckpoint;
+import com.example.transactionlab.entity.LedgerEntry;
+import com.example.transactionlab.entity.TransactionRecord;
+import com.example.transactionlab.repository.BalanceCheckpointRepository;
+import com.example.transactionlab.repository.LedgerEntryRepository;
+import com.example.transactionlab.repository.LedgerTotals;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Append-only ledger of account movements with periodic balance checkpoints.
+ *
+ * Every transfer writes one entry per account, in the same transaction and
+ * with the same timestamp as its TransactionRecord. The balance of an account
+ * at time t is its latest checkpoint at or before t plus the entries between
+ * that checkpoint and t; both lookups go through an (account, time) index, so
+ * the cost depends on the entries since the last checkpoint, not on the
+ * length of the history.
+ *
+ * A scheduled job writes a new checkpoint for every account that collected
+ * banking.ledger.checkpoint-every entries since its last one. Checkpoints are
+ * taken banking.ledger.checkpoint-lag in the past: an entry gets its
+ * timestamp before its transaction commits, so the lag has to be longer than
+ * any transfer transaction or a late commit could land behind a checkpoint.
+ */
+@Service
+public class LedgerService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LedgerService.class);
+    
+    // Lower bound for accounts without a checkpoint yet
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int checkpointEvery;
+    private final Duration checkpointLag;
+    private LocalDateTime lastCutoff;
+    
+    public LedgerService(LedgerEntryRepository ledgerEntryRepository,
+                         BalanceCheckpointRepository checkpointRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${banking.ledger.checkpoint-every:1000}") int checkpointEvery,
+                         @Value("${banking.ledger.checkpoint-lag:1m}") Duration checkpointLag) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.checkpointEvery = checkpointEvery;
+        this.checkpointLag = checkpointLag;
+    }
+    
+    /**
+     * Records a transfer as a debit of the from account and a credit of the
+     * to account. Must run in the transaction that moves the balances.
+     */
+    public void recordTransfer(Long fromAccountId, Long toAccountId, BigDecimal amount, LocalDateTime timestamp) {
+        ledgerEntryRepository.save(new LedgerEntry(fromAccountId, toAccountId, amount.negate(),
+                TransactionRecord.TransactionType.TRANSFER, timestamp));
+        ledgerEntryRepository.save(new LedgerEntry(toAccountId, fromAccountId, amount,
+                TransactionRecord.TransactionType.TRANSFER, timestamp));
+    }
+    
+    /**
+     * Records the initial balance of a new account as a deposit.
+     */
+    public void recordOpening(Long accountId, BigDecimal initialBalance) {
+        ledgerEntryRepository.save(new LedgerEntry(accountId, null, initialBalance,
+                TransactionRecord.TransactionType.DEPOSIT, LocalDateTime.now()));
+    }
+    
+    /**
+     * Balance of the account including every entry with a timestamp up to and
+     * including the given time.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal balanceAt(Long accountId, LocalDateTime at) {
+        BalanceCheckpoint checkpoint = checkpointRepository
+                .findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(accountId, at)
+                .orElse(null);
+        LocalDateTime after = checkpoint != null ? checkpoint.getAsOf() : BEGINNING;
+        BigDecimal balance = checkpoint != null ? checkpoint.getBalance() : BigDecimal.ZERO;
+        return balance.add(ledgerEntryRepository.totalBetween(accountId, after, at).sum());
+    }
+    
+    /**
+     * Entries of the account after from and up to to, at most limit of them,
+     * with the balances at both ends.
+     */
+    @Transactional(readOnly = true)
+    public Statement statement(Long accountId, String accountNumber, LocalDateTime from, LocalDateTime to, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Statement limit must be positive");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Statement period must not end before it starts");
+        }
+        List<LedgerEntry> entries = ledgerEntryRepository.findBetween(accountId, from, to, PageRequest.of(0, limit + 1));
+        boolean truncated = entries.size() > limit;
+        if (truncated) {
+            entries = entries.subList(0, limit);
+        }
+        return new Statement(accountNumber, from, to, balanceAt(accountId, from), balanceAt(accountId, to),
+                entries, truncated);
+    }
+    
+    /**
+     * Checkpoints every account that had activity since the previous run and
+     * has collected enough entries since its last checkpoint.
+     */
+    @Scheduled(fixedDelayString = "${banking.ledger.checkpoint-interval:60000}")
+    public void checkpoint() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(checkpointLag);
+        if (lastCutoff == null) {
+            lastCutoff = checkpointRepository.findLatestAsOf().orElse(BEGINNING);
+        }
+        if (!cutoff.isAfter(lastCutoff)) {
+            return;
+        }
+        int written = 0;
+        for (Long accountId : ledgerEntryRepository.findAccountIdsBetween(lastCutoff, cutoff)) {
+            Boolean checkpointed = transactionTemplate.execute(status -> checkpoint(accountId, cutoff));
+            if (Boolean.TRUE.equals(checkpointed)) {
+                written++;
+            }
+        }
+        lastCutoff = cutoff;
+        if (written > 0) {
+            logger.info("Wrote {} balance checkpoints as of {}", written, cutoff);
+        }
+    }
+    
+    private boolean checkpoint(Long accountId, LocalDateTime cutoff) {
+        BalanceCheckpoint previous = checkpointRepository
+                .findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(accountId, cutoff)
+                .orElse(null);
+        LocalDateTime after = previous != null ? previous.getAsOf() : BEGINNING;
+        LedgerTotals tail = ledgerEntryRepository.totalBetween(accountId, after, cutoff);
+        if (tail.count() < checkpointEvery) {
+            return false;
+        }
+        BigDecimal balance = previous != null ? previous.getBalance().add(tail.sum()) : tail.sum();
+        checkpointRepository.save(new BalanceCheckpoint(accountId, cutoff, balance));
+        return true;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.transactionlab.service;
+
+/**
+ * How a transfer protects the balances it reads from concurrent transfers.
+ */
+public enum LockingMode {
+    
+    /**
+     * Lock both account rows (SELECT ... FOR UPDATE) for the whole transfer.
+     * Conflicting transfers wait; best when the same accounts are hit often.
+     */
+    PESSIMISTIC,
+    
+    /**
+     * Read without locks and write with version-checked updates. Conflicting
+     * transfers fail and are retried; best when conflicts are rare.
+     */
+    OPTIMISTIC
+}
@@ -0,0 +1,17 @@
+package com.example.transactionlab.service;
+
+import com.example.transactionlab.entity.LedgerEntry;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Ledger entries of one account with from &lt; timestamp &lt;= to, with the
+ * balances at both ends. When truncated is set, entries holds only the first
+ * limit entries of the period; the closing balance still covers all of it.
+ */
+public record Statement(String accountNumber, LocalDateTime from, LocalDateTime to,
+                        BigDecimal openingBalance, BigDecimal closingBalance,
+                        List<LedgerEntry> entries, boolean truncated) {
+}
@@ -0,0 +1,9 @@
+package com.example.transactionlab.service;
+
+import java.math.BigDecimal;
+
+/**
+ * One transfer in a batch.
+ */
+public record TransferRequest(String fromAccount, String toAccount, BigDecimal amount) {
+}
@@ -0,0 +1,17 @@
+package com.example.transactionlab.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Outcome of one transfer in a batch. Results are returned in request order.
+ */
+public record TransferResult(String fromAccount, String toAccount, BigDecimal amount, Status status, String message) {
+    
+    public enum Status {
+        COMPLETED, INVALID_AMOUNT, ACCOUNT_NOT_FOUND, INSUFFICIENT_BALANCE, FAILED
+    }
+    
+    static TransferResult of(TransferRequest request, Status status, String message) {
+        return new TransferResult(request.fromAccount(), request.toAccount(), request.amount(), status, message);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.transactionlab.benchmark;
+
+import com.example.transactionlab.entity.Account;
+import com.example.transactionlab.service.BankingService;
+import com.example.transactionlab.service.BatchTransferService;
+import com.example.transactionlab.service.TransferRequest;
+import com.example.transactionlab.service.TransferResult;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Transfers per second through BatchTransferService against the in-memory H2
+ * database, with the same kind of random transfers pushed one at a time
+ * through BankingService.transferMoney for comparison.
+ *
+ * Run with ./gradlew benchmark and tune it with -Dbenchmark.transfers
+ * (1000000), -Dbenchmark.accounts (10000), -Dbenchmark.single-transfers
+ * (10000) and -Dbenchmark.chunk-size (1000). A million transfers leave three
+ * million rows in the in-memory database, which is why the task gets a 3g heap.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:batchtransferbenchmark",
+        "spring.jpa.show-sql=false",
+        "banking.batch.chunk-size=${benchmark.chunk-size:1000}"
+})
+@DirtiesContext
+class BatchTransferBenchmark {
+    
+    private static final int TRANSFERS = Integer.getInteger("benchmark.transfers", 1_000_000);
+    private static final int ACCOUNTS = Integer.getInteger("benchmark.accounts", 10_000);
+    private static final int SINGLE_TRANSFERS = Integer.getInteger("benchmark.single-transfers", 10_000);
+    private static final BigDecimal OPENING = new BigDecimal("1000000.00");
+    
+    @Autowired
+    private BankingService bankingService;
+    
+    @Autowired
+    private BatchTransferService batchTransferService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void batchTransferThroughput() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            bankingService.createAccount(accountNumber(i), "Holder " + i, OPENING, Account.AccountType.CHECKING);
+        }
+        BigDecimal total = totalBalance();
+        Random random = new Random(42);
+        
+        // one at a time first, so the batch run is not measured on a table already holding its own rows
+        List<TransferRequest> singles = transfers(SINGLE_TRANSFERS, random);
+        long started = System.nanoTime();
+        for (TransferRequest transfer : singles) {
+            bankingService.transferMoney(transfer.fromAccount(), transfer.toAccount(), transfer.amount());
+        }
+        double singleRate = singles.size() * 1e9 / (System.nanoTime() - started);
+        
+        List<TransferRequest> batch = transfers(TRANSFERS, random);
+        started = System.nanoTime();
+        List<TransferResult> results = batchTransferService.transferAll(batch);
+        double batchRate = batch.size() * 1e9 / (System.nanoTime() - started);
+        
+        System.out.printf("%n%d accounts%n", ACCOUNTS);
+        System.out.printf("%-14s %10s %12s%n", "api", "transfers", "transfers/s");
+        System.out.printf("%-14s %10d %12.0f%n", "transferMoney", singles.size(), singleRate);
+        System.out.printf("%-14s %10d %12.0f%n", "transferAll", batch.size(), batchRate);
+        
+        assertThat(results).hasSize(batch.size())
+                .allSatisfy(result -> assertThat(result.status()).isEqualTo(TransferResult.Status.COMPLETED));
+        assertThat(totalBalance()).isEqualByComparingTo(total);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction_records", Long.class))
+                .isEqualTo((long) singles.size() + batch.size());
+    }
+    
+    /**
+     * Random transfers between distinct accounts, small enough that no
+     * account can run dry.
+     */
+    private static List<TransferRequest> transfers(int count, Random random) {
+        List<TransferRequest> transfers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int from = random.nextInt(ACCOUNTS);
+            int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+            transfers.add(new TransferRequest(accountNumber(from), accountNumber(to),
+                    BigDecimal.valueOf(1 + random.nextInt(100))));
+        }
+        return transfers;
+    }
+    
+    private static String accountNumber(int index) {
+        return String.format("BATCH-%06d", index);
+    }
+    
+    private BigDecimal totalBalance() {
+        return jdbcTemplate.queryForObject("SELECT SUM(balance) FROM accounts", BigDecimal.class);
+    }
+}
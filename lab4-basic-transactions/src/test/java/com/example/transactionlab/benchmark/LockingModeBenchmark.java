@@ -0,0 +1,168 @@
+package com.example.transactionlab.benchmark;
+
+import com.example.transactionlab.entity.Account;
+import com.example.transactionlab.service.BankingService;
+import com.example.transactionlab.service.LockingMode;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * PESSIMISTIC against OPTIMISTIC transfers from many threads, with the
+ * transfers spread over many accounts (low contention) and over a few hot
+ * accounts (high contention). Reports throughput and the abort rate: the
+ * share of attempts that lost a lock race or a version check and were rolled
+ * back. Transfers that still failed after the last retry are counted apart.
+ *
+ * Run with ./gradlew benchmark and tune it with -Dbenchmark.threads (16),
+ * -Dbenchmark.transfers (20000 per run), -Dbenchmark.accounts (1000) and
+ * -Dbenchmark.hot-accounts (4). The retry policy is the usual
+ * banking.retry.*, which can be overridden the same way.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:lockingmodebenchmark",
+        "spring.jpa.show-sql=false"
+})
+@DirtiesContext
+class LockingModeBenchmark {
+    
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 16);
+    private static final int TRANSFERS = Integer.getInteger("benchmark.transfers", 20_000);
+    private static final int ACCOUNTS = Integer.getInteger("benchmark.accounts", 1000);
+    private static final int HOT_ACCOUNTS = Integer.getInteger("benchmark.hot-accounts", 4);
+    private static final BigDecimal OPENING = new BigDecimal("1000000.00");
+    
+    private static final AtomicLong aborts = new AtomicLong();
+    
+    @Autowired
+    private BankingService bankingService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @TestConfiguration
+    static class AbortCounting {
+        
+        /**
+         * Picked up by @EnableRetry for every @Retryable method; called once
+         * per attempt that threw, including the last one.
+         */
+        @Bean
+        RetryListener abortCounter() {
+            return new RetryListener() {
+                @Override
+                public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback,
+                                                             Throwable throwable) {
+                    aborts.incrementAndGet();
+                }
+            };
+        }
+    }
+    
+    @Test
+    void compareLockingModes() throws Exception {
+        List<String> spread = createAccounts("SPREAD-", ACCOUNTS);
+        List<String> hot = createAccounts("HOT-", HOT_ACCOUNTS);
+        BigDecimal total = totalBalance();
+        
+        List<String> lines = new ArrayList<>();
+        for (LockingMode mode : LockingMode.values()) {
+            lines.add(run("low", spread, mode).format());
+            lines.add(run("high", hot, mode).format());
+        }
+        
+        System.out.printf("%n%d threads, %d transfers per run, low = %d accounts, high = %d accounts%n",
+                THREADS, TRANSFERS, ACCOUNTS, HOT_ACCOUNTS);
+        System.out.printf("%-11s %-5s %12s %9s %9s %8s%n",
+                "mode", "load", "transfers/s", "attempts", "aborts", "failed");
+        lines.forEach(System.out::println);
+        
+        assertThat(totalBalance()).isEqualByComparingTo(total);
+    }
+    
+    private Result run(String load, List<String> accounts, LockingMode mode) throws Exception {
+        aborts.set(0);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int transfers = TRANSFERS / THREADS + (t < TRANSFERS % THREADS ? 1 : 0);
+            workers.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < transfers; i++) {
+                    int from = random.nextInt(accounts.size());
+                    int to = (from + 1 + random.nextInt(accounts.size() - 1)) % accounts.size();
+                    try {
+                        bankingService.transferMoney(accounts.get(from), accounts.get(to),
+                                BigDecimal.valueOf(1 + random.nextInt(100)), mode);
+                        completed.incrementAndGet();
+                    } catch (ConcurrencyFailureException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(30, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - started;
+        executor.shutdown();
+        
+        assertThat(completed.get() + failed.get()).isEqualTo(TRANSFERS);
+        return new Result(mode, load, completed.get() * 1e9 / elapsed,
+                completed.get() + aborts.get(), aborts.get(), failed.get());
+    }
+    
+    private List<String> createAccounts(String prefix, int count) {
+        List<String> accountNumbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String accountNumber = String.format("%s%05d", prefix, i);
+            bankingService.createAccount(accountNumber, "Holder " + accountNumber, OPENING,
+                    Account.AccountType.CHECKING);
+            accountNumbers.add(accountNumber);
+        }
+        return accountNumbers;
+    }
+    
+    private BigDecimal totalBalance() {
+        return jdbcTemplate.queryForObject("SELECT SUM(balance) FROM accounts", BigDecimal.class);
+    }
+    
+    private record Result(LockingMode mode, String load, double throughput, long attempts, long aborts,
+                          long failed) {
+        
+        String format() {
+            return String.format("%-11s %-5s %12.0f %9d %8.1f%% %8d",
+                    mode, load, throughput, attempts, attempts == 0 ? 0 : 100.0 * aborts / attempts, failed);
+        }
+    }
+}
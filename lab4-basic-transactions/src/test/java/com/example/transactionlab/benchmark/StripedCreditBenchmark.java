@@ -0,0 +1,131 @@
+package com.example.transactionlab.benchmark;
+
+import com.example.transactionlab.entity.Account;
+import com.example.transactionlab.repository.AccountRepository;
+import com.example.transactionlab.service.BalanceStripes;
+import com.example.transactionlab.service.BankingService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent credits into one business account at different stripe counts.
+ * Every thread transfers from its own account, so the only row the threads
+ * share is the business account (or, when it is striped, its stripes).
+ * Stripe count 0 is the unstriped account, where every credit waits for the
+ * account row lock.
+ *
+ * Run with ./gradlew benchmark and tune it with -Dbenchmark.stripes
+ * (0,1,2,4,8,16), -Dbenchmark.threads (16) and -Dbenchmark.credits (5000 per
+ * stripe count). Credits only run in parallel on as many cores as there are,
+ * so expect the curve to flatten at about the core count.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:stripedcreditbenchmark",
+        "spring.jpa.show-sql=false"
+})
+@DirtiesContext
+class StripedCreditBenchmark {
+    
+    private static final int[] STRIPES = Arrays.stream(System.getProperty("benchmark.stripes", "0,1,2,4,8,16")
+            .split(",")).mapToInt(stripes -> Integer.parseInt(stripes.trim())).toArray();
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 16);
+    private static final int CREDITS = Integer.getInteger("benchmark.credits", 5000);
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    
+    @Autowired
+    private BankingService bankingService;
+    
+    @Autowired
+    private AccountRepository accountRepository;
+    
+    @Autowired
+    private BalanceStripes balanceStripes;
+    
+    @Test
+    void creditThroughputByStripeCount() throws Exception {
+        List<String> sources = new ArrayList<>(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            String accountNumber = String.format("PAYER-%03d", t);
+            // enough for this payer's share of every run, the warm-up included
+            bankingService.createAccount(accountNumber, "Payer " + t,
+                    AMOUNT.multiply(BigDecimal.valueOf((long) CREDITS * (STRIPES.length + 1))),
+                    Account.AccountType.CHECKING);
+            sources.add(accountNumber);
+        }
+        // not measured: otherwise the first stripe count would also pay for JIT compilation
+        credit(sources, createBusinessAccount("BIZ-WARMUP", 0));
+        
+        System.out.printf("%n%d threads, %d credits per stripe count%n", THREADS, CREDITS);
+        System.out.printf("%7s %10s %8s%n", "stripes", "credits/s", "speedup");
+        double unstriped = 0;
+        for (int stripes : STRIPES) {
+            String business = createBusinessAccount(String.format("BIZ-%03d", stripes), stripes);
+            double throughput = credit(sources, business);
+            if (unstriped == 0) {
+                unstriped = throughput;
+            }
+            System.out.printf("%7d %10.0f %7.2fx%n", stripes, throughput, throughput / unstriped);
+            
+            assertThat(bankingService.getAccount(business).getBalance())
+                    .isEqualByComparingTo(AMOUNT.multiply(BigDecimal.valueOf(CREDITS)));
+        }
+    }
+    
+    /**
+     * Credits the account CREDITS times from all threads and returns the
+     * credits per second.
+     */
+    private double credit(List<String> sources, String business) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String source = sources.get(t);
+            int credits = CREDITS / THREADS + (t < CREDITS % THREADS ? 1 : 0);
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < credits; i++) {
+                    bankingService.transferMoney(source, business, AMOUNT);
+                }
+                return null;
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(30, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - started;
+        executor.shutdown();
+        return CREDITS * 1e9 / elapsed;
+    }
+    
+    /**
+     * A business account with the given stripe count; banking.striping.business-stripes
+     * only sets one count for the whole run.
+     */
+    private String createBusinessAccount(String accountNumber, int stripes) {
+        Account account = new Account(accountNumber, "Business " + accountNumber, BigDecimal.ZERO,
+                Account.AccountType.BUSINESS);
+        account.setBalanceStripes(stripes);
+        accountRepository.save(account);
+        balanceStripes.createStripes(account);
+        return accountNumber;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.transactionlab.cache;
+
+import com.example.transactionlab.entity.Account;
+import com.example.transactionlab.repository.AccountBalanceStripeRepository;
+import com.example.transactionlab.repository.AccountRepository;
+import com.example.transactionlab.service.BankingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Transfers and cached reads running at the same time. Transfers only move
+ * money between the test accounts, so every committed state has the same
+ * total: a read that adds up to anything else saw a state that was never
+ * committed.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "banking.striping.business-stripes=4",
+        "spring.jpa.show-sql=false"
+})
+class AccountCacheConsistencyTest {
+    
+    private static final String PREFIX = "CACHE-";
+    private static final List<String> ACCOUNTS = List.of(PREFIX + "1", PREFIX + "2", PREFIX + "3", PREFIX + "4");
+    private static final BigDecimal OPENING = new BigDecimal("500.00");
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int TRANSFERS_PER_WRITER = 150;
+    
+    @Autowired
+    private BankingService bankingService;
+    
+    @Autowired
+    private AccountCache accountCache;
+    
+    @Autowired
+    private AccountRepository accountRepository;
+    
+    @Autowired
+    private AccountBalanceStripeRepository stripeRepository;
+    
+    @Test
+    void cachedReadsOnlySeeCommittedBalances() throws Exception {
+        for (String accountNumber : ACCOUNTS) {
+            // one striped account, so that credits to it go to stripes and reads have to add them up
+            Account.AccountType type = accountNumber.endsWith("1") ? Account.AccountType.BUSINESS
+                    : Account.AccountType.CHECKING;
+            bankingService.createAccount(accountNumber, "Holder " + accountNumber, OPENING, type);
+        }
+        BigDecimal total = OPENING.multiply(BigDecimal.valueOf(ACCOUNTS.size()));
+        
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        Queue<String> badReads = new ConcurrentLinkedQueue<>();
+        Queue<Exception> failures = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_WRITER; i++) {
+                    int from = random.nextInt(ACCOUNTS.size());
+                    int to = (from + 1 + random.nextInt(ACCOUNTS.size() - 1)) % ACCOUNTS.size();
+                    try {
+                        bankingService.transferMoney(ACCOUNTS.get(from), ACCOUNTS.get(to),
+                                BigDecimal.valueOf(1 + random.nextInt(5)));
+                    } catch (Exception e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            readers.add(executor.submit(() -> {
+                start.await();
+                while (writing.get()) {
+                    BigDecimal seen = BigDecimal.ZERO;
+                    for (Account account : bankingService.getAllAccounts()) {
+                        if (account.getAccountNumber().startsWith(PREFIX)) {
+                            seen = seen.add(account.getBalance());
+                        }
+                    }
+                    if (seen.compareTo(total) != 0) {
+                        badReads.add("getAllAccounts total " + seen);
+                    }
+                    for (String accountNumber : ACCOUNTS) {
+                        BigDecimal balance = bankingService.getAccount(accountNumber).getBalance();
+                        if (balance.signum() < 0 || balance.compareTo(total) > 0) {
+                            badReads.add(accountNumber + " balance " + balance);
+                        }
+                    }
+                    reads.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(2, TimeUnit.MINUTES);
+        }
+        writing.set(false);
+        for (Future<?> reader : readers) {
+            reader.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        
+        assertThat(reads.get()).isPositive();
+        assertThat(badReads).isEmpty();
+        // a transfer may only fail for lack of money or a lost lock race, never leave the cache behind
+        assertThat(failures).allSatisfy(failure -> assertThat(failure)
+                .satisfiesAnyOf(e -> assertThat(e).isInstanceOf(ConcurrencyFailureException.class),
+                        e -> assertThat(e).hasMessageStartingWith("Insufficient balance")));
+        
+        // quiescent: whatever the cache holds now must be what is committed
+        for (int pass = 0; pass < 2; pass++) {
+            BigDecimal cachedTotal = BigDecimal.ZERO;
+            for (String accountNumber : ACCOUNTS) {
+                BigDecimal cached = bankingService.getAccount(accountNumber).getBalance();
+                assertThat(cached).as(accountNumber).isEqualByComparingTo(committedBalance(accountNumber));
+                cachedTotal = cachedTotal.add(cached);
+            }
+            assertThat(cachedTotal).isEqualByComparingTo(total);
+            for (Account account : bankingService.getAllAccounts()) {
+                if (account.getAccountNumber().startsWith(PREFIX)) {
+                    assertThat(account.getBalance()).as(account.getAccountNumber())
+                            .isEqualByComparingTo(committedBalance(account.getAccountNumber()));
+                }
+            }
+        }
+        assertThat(accountCache.getHits()).isPositive();
+    }
+    
+    /**
+     * Account row plus stripes, read past the cache.
+     */
+    private BigDecimal committedBalance(String accountNumber) {
+        Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow();
+        return account.getBalance().add(stripeRepository.sumBalances(account.getId()));
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.transactionlab.controller;
+
+import com.example.transactionlab.entity.Account;
+import com.example.transactionlab.repository.AccountRepository;
+import com.example.transactionlab.repository.TransactionRecordRepository;
+import com.example.transactionlab.service.BankingService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports through a real server, so that the streamed body, the flushes and
+ * the gzip encoding are what a client would receive. Small fetch and flush
+ * sizes make every export span several of each.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:exportdb",
+        "spring.jpa.show-sql=false",
+        "banking.export.fetch-size=7",
+        "banking.export.flush-rows=10"
+})
+class ExportControllerTest {
+    
+    private static final int TRANSFERS = 45;
+    
+    @LocalServerPort
+    private int port;
+    
+    @Autowired
+    private BankingService bankingService;
+    
+    @Autowired
+    private AccountRepository accountRepository;
+    
+    @Autowired
+    private TransactionRecordRepository transactionRecordRepository;
+    
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @BeforeEach
+    void createTransfers() {
+        if (accountRepository.findByAccountNumber("EXPORT-1").isPresent()) {
+            return;
+        }
+        bankingService.createAccount("EXPORT-1", "Export \"One\", Ltd", new BigDecimal("1000.00"),
+                Account.AccountType.CHECKING);
+        bankingService.createAccount("EXPORT-2", "Export Two", new BigDecimal("1000.00"),
+                Account.AccountType.SAVINGS);
+        for (int i = 0; i < TRANSFERS; i++) {
+            bankingService.transferMoney(i % 2 == 0 ? "EXPORT-1" : "EXPORT-2", i % 2 == 0 ? "EXPORT-2" : "EXPORT-1",
+                    BigDecimal.ONE);
+        }
+    }
+    
+    @Test
+    void accountsAsCsv() throws Exception {
+        HttpResponse<byte[]> response = get("/accounts", null);
+        
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+                type -> assertThat(type).startsWith("text/csv"));
+        assertThat(response.headers().firstValue("Content-Encoding")).isEmpty();
+        List<String> lines = lines(response.body());
+        assertThat(lines).hasSize(1 + (int) accountRepository.count());
+        assertThat(lines.get(0)).isEqualTo("id,accountNumber,accountHolder,balance,accountType");
+        assertThat(lines).anySatisfy(line -> assertThat(line).contains("\"Export \"\"One\"\", Ltd\""));
+    }
+    
+    @Test
+    void transactionsAsGzippedNdjson() throws Exception {
+        HttpResponse<byte[]> response = get("/transactions?format=ndjson", "gzip, deflate");
+        
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+                type -> assertThat(type).startsWith("application/x-ndjson"));
+        assertThat(response.headers().firstValue("Content-Encoding")).hasValue("gzip");
+        List<String> lines = lines(gunzip(response.body()));
+        assertThat(lines).hasSize((int) transactionRecordRepository.count()).hasSizeGreaterThanOrEqualTo(TRANSFERS);
+        for (String line : lines) {
+            JsonNode row = objectMapper.readTree(line);
+            assertThat(row.get("fromAccount").asText()).isNotEmpty();
+            assertThat(row.get("amount").decimalValue()).isPositive();
+        }
+    }
+    
+    @Test
+    void transactionsAsGzippedCsv() throws Exception {
+        HttpResponse<byte[]> response = get("/transactions", "gzip");
+        
+        assertThat(response.headers().firstValue("Content-Encoding")).hasValue("gzip");
+        assertThat(lines(gunzip(response.body()))).hasSize(1 + (int) transactionRecordRepository.count());
+    }
+    
+    @Test
+    void gzipRefusedWithZeroQuality() throws Exception {
+        HttpResponse<byte[]> response = get("/accounts?format=ndjson", "gzip;q=0, identity");
+        
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Encoding")).isEmpty();
+        assertThat(lines(response.body())).hasSize((int) accountRepository.count());
+    }
+    
+    @Test
+    void unknownFormatIsBadRequest() throws Exception {
+        assertThat(get("/accounts?format=xml", null).statusCode()).isEqualTo(400);
+    }
+    
+    @Test
+    void acceptEncodingQualities() {
+        assertThat(ExportController.acceptsGzip(null)).isFalse();
+        assertThat(ExportController.acceptsGzip("gzip")).isTrue();
+        assertThat(ExportController.acceptsGzip("deflate, GZIP;q=0.5")).isTrue();
+        assertThat(ExportController.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(ExportController.acceptsGzip("gzip; q=0.0, *")).isFalse();
+        assertThat(ExportController.acceptsGzip("*")).isTrue();
+        assertThat(ExportController.acceptsGzip("*;q=0")).isFalse();
+        assertThat(ExportController.acceptsGzip("br, identity")).isFalse();
+    }
+    
+    private HttpResponse<byte[]> get(String path, String acceptEncoding) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/api/banking/export" + path));
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+    
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+    
+    private static List<String> lines(byte[] body) {
+        return new String(body, StandardCharsets.UTF_8).lines().toList();
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.transactionlab.service;
+
+import com.example.transactionlab.entity.Account;
+import com.example.transactionlab.repository.AccountBalanceStripeRepository;
+import com.example.transactionlab.repository.AccountRepository;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Opposing transfers between the same two accounts, run concurrently in both
+ * locking modes. The receiving side of A→B is a striped business account, so
+ * credits go to stripes and B→A debits sweep them.
+ *
+ * Pessimistic transfers queue on the row locks, so every one of them has to
+ * complete. Optimistic transfers on two accounts conflict all the time, so
+ * some may run out of retries, but never all of them.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "banking.striping.business-stripes=4",
+        "spring.jpa.show-sql=false"
+})
+class BankingServiceConcurrencyTest {
+    
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 500;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    
+    @Autowired
+    private BankingService bankingService;
+    
+    @Autowired
+    private AccountRepository accountRepository;
+    
+    @Autowired
+    private AccountBalanceStripeRepository stripeRepository;
+    
+    @ParameterizedTest
+    @EnumSource(LockingMode.class)
+    void opposingTransfersNeitherDeadlockNorLoseMoney(LockingMode mode) throws Exception {
+        String a = "RACE-A-" + mode;
+        String b = "RACE-B-" + mode;
+        // B's row holds little and the rest sits in its stripes, so B→A transfers have to sweep them;
+        // each side holds enough for every transfer to go its way, so none can fail for lack of money
+        BigDecimal funding = AMOUNT.multiply(BigDecimal.valueOf(THREADS * TRANSFERS_PER_THREAD / 2));
+        bankingService.createAccount(a, "Alice", funding.add(funding).add(new BigDecimal("200.00")),
+                Account.AccountType.CHECKING);
+        bankingService.createAccount(b, "Bob", new BigDecimal("20.00"), Account.AccountType.BUSINESS);
+        bankingService.transferMoney(a, b, funding, mode);
+        BigDecimal aBefore = total(a);
+        BigDecimal bBefore = total(b);
+        
+        AtomicInteger completedToB = new AtomicInteger();
+        AtomicInteger completedToA = new AtomicInteger();
+        Queue<Exception> failures = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    // alternate directions so that neither account can run dry
+                    boolean toB = (thread + i) % 2 == 0;
+                    try {
+                        if (toB) {
+                            bankingService.transferMoney(a, b, AMOUNT, mode);
+                            completedToB.incrementAndGet();
+                        } else {
+                            bankingService.transferMoney(b, a, AMOUNT, mode);
+                            completedToA.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        // a deadlock that is never resolved shows up here as a timeout
+        for (Future<?> worker : workers) {
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        
+        int completed = completedToB.get() + completedToA.get();
+        assertThat(completed + failures.size()).isEqualTo(THREADS * TRANSFERS_PER_THREAD);
+        if (mode == LockingMode.PESSIMISTIC) {
+            assertThat(failures).isEmpty();
+        } else {
+            // the only acceptable failures are version conflicts that ran out of retries
+            assertThat(failures).allSatisfy(failure -> assertThat(failure).isInstanceOf(ConcurrencyFailureException.class));
+            assertThat(completed).isPositive();
+        }
+        
+        BigDecimal net = AMOUNT.multiply(BigDecimal.valueOf(completedToB.get() - completedToA.get()));
+        assertThat(total(a)).isEqualByComparingTo(aBefore.subtract(net));
+        assertThat(total(b)).isEqualByComparingTo(bBefore.add(net));
+        assertThat(total(a).add(total(b))).isEqualByComparingTo(aBefore.add(bBefore));
+    }
+    
+    /**
+     * Committed balance of the account row plus its stripes, read past the cache.
+     */
+    private BigDecimal total(String accountNumber) {
+        Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow();
+        return account.getBalance().add(stripeRepository.sumBalances(account.getId()));
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.transactionlab.service;
+
+import com.example.transactionlab.entity.BalanceCheckpoint;
+import com.example.transactionlab.entity.LedgerEntry;
+import com.example.transactionlab.entity.TransactionRecord;
+import com.example.transactionlab.repository.BalanceCheckpointRepository;
+import com.example.transactionlab.repository.LedgerEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Balances and statements read through checkpoints must always equal a
+ * replay of every entry from the beginning.
+ *
+ * Each test drives its own LedgerService with a small checkpoint-every, so it
+ * decides when checkpoints are taken; a new instance stands in for a restart.
+ * The application's own scheduled job runs once at startup and then not
+ * again during the tests.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledgertest",
+        "spring.jpa.show-sql=false",
+        "banking.ledger.checkpoint-interval=86400000"
+})
+class LedgerServiceTest {
+    
+    private static final int CHECKPOINT_EVERY = 3;
+    private static final Duration LAG = Duration.ofMinutes(5);
+    private static final long ACCOUNT = 1001L;
+    private static final long OTHER_ACCOUNT = 1002L;
+    
+    @Autowired
+    private LedgerEntryRepository entryRepository;
+    
+    @Autowired
+    private BalanceCheckpointRepository checkpointRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @BeforeEach
+    void clearLedger() {
+        // the latest checkpoint of any account is where a restarted job resumes, so start from none
+        checkpointRepository.deleteAllInBatch();
+        entryRepository.deleteAllInBatch();
+    }
+    
+    @Test
+    void balancesAroundACheckpointMatchAFullReplay() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime base = now.minusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        entry(ACCOUNT, "100.00", base.plusMinutes(1));
+        entry(ACCOUNT, "-30.00", base.plusMinutes(2));
+        entry(ACCOUNT, "50.00", base.plusMinutes(3));
+        entry(ACCOUNT, "5.00", base.plusMinutes(3));
+        entry(ACCOUNT, "-20.00", base.plusMinutes(4));
+        // inside the lag: committed too recently to be part of a checkpoint
+        entry(ACCOUNT, "7.00", now.minusMinutes(2));
+        entry(ACCOUNT, "-3.00", now.minusMinutes(1));
+        
+        LocalDateTime earliestCutoff = LocalDateTime.now().minus(LAG);
+        ledger().checkpoint();
+        LocalDateTime latestCutoff = LocalDateTime.now().minus(LAG);
+        
+        BalanceCheckpoint checkpoint = onlyCheckpoint(ACCOUNT);
+        assertThat(checkpoint.getAsOf()).isBetween(earliestCutoff, latestCutoff);
+        assertThat(checkpoint.getBalance()).isEqualByComparingTo("105.00");
+        
+        LedgerService ledger = ledger();
+        List<LocalDateTime> times = new ArrayList<>(List.of(base, checkpoint.getAsOf(), now, now.plusMinutes(1)));
+        for (LedgerEntry entry : entryRepository.findAll()) {
+            times.add(entry.getTimestamp().minusNanos(1000));
+            times.add(entry.getTimestamp());
+            times.add(entry.getTimestamp().plusNanos(1000));
+        }
+        for (LocalDateTime at : times) {
+            assertThat(ledger.balanceAt(ACCOUNT, at)).as("balance at %s", at).isEqualByComparingTo(replay(ACCOUNT, at));
+        }
+        
+        // periods before, across and after the checkpoint
+        LocalDateTime[][] periods = {
+                {base, base.plusMinutes(3)},
+                {base.plusMinutes(2), now},
+                {checkpoint.getAsOf(), now},
+                {base, now.plusMinutes(1)}
+        };
+        for (LocalDateTime[] period : periods) {
+            Statement statement = ledger.statement(ACCOUNT, "ACC", period[0], period[1], 100);
+            assertThat(statement.openingBalance()).isEqualByComparingTo(replay(ACCOUNT, period[0]));
+            assertThat(statement.closingBalance()).isEqualByComparingTo(replay(ACCOUNT, period[1]));
+            assertThat(statement.entries()).extracting(LedgerEntry::getId)
+                    .containsExactlyElementsOf(replayedIds(ACCOUNT, period[0], period[1]));
+            assertThat(statement.truncated()).isFalse();
+        }
+    }
+    
+    @Test
+    void entryAtTheCheckpointTimeIsCountedOnce() {
+        LocalDateTime t1 = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime t2 = t1.plusMinutes(1);
+        LocalDateTime t3 = t1.plusMinutes(2);
+        LedgerEntry first = entry(ACCOUNT, "100.00", t1);
+        LedgerEntry atCheckpoint = entry(ACCOUNT, "40.00", t2);
+        LedgerEntry last = entry(ACCOUNT, "-25.00", t3);
+        // the job's cutoff comes from the clock, so place one by hand exactly on an entry;
+        // like the job's, it includes every entry up to and including its time
+        checkpointRepository.save(new BalanceCheckpoint(ACCOUNT, t2, replay(ACCOUNT, t2)));
+        
+        LedgerService ledger = ledger();
+        assertThat(ledger.balanceAt(ACCOUNT, t2)).isEqualByComparingTo("140.00");
+        assertThat(ledger.balanceAt(ACCOUNT, t2.minusNanos(1000))).isEqualByComparingTo("100.00");
+        assertThat(ledger.balanceAt(ACCOUNT, t3)).isEqualByComparingTo("115.00");
+        
+        // a statement starts after from and ends at to inclusive
+        Statement fromCheckpoint = ledger.statement(ACCOUNT, "ACC", t2, t3, 100);
+        assertThat(fromCheckpoint.openingBalance()).isEqualByComparingTo("140.00");
+        assertThat(fromCheckpoint.entries()).extracting(LedgerEntry::getId).containsExactly(last.getId());
+        assertThat(fromCheckpoint.closingBalance()).isEqualByComparingTo("115.00");
+        
+        Statement toCheckpoint = ledger.statement(ACCOUNT, "ACC", t1, t2, 100);
+        assertThat(toCheckpoint.openingBalance()).isEqualByComparingTo("100.00");
+        assertThat(toCheckpoint.entries()).extracting(LedgerEntry::getId).containsExactly(atCheckpoint.getId());
+        assertThat(toCheckpoint.closingBalance()).isEqualByComparingTo("140.00");
+        
+        Statement whole = ledger.statement(ACCOUNT, "ACC", t1.minusMinutes(1), t3, 100);
+        assertThat(whole.entries()).extracting(LedgerEntry::getId)
+                .containsExactly(first.getId(), atCheckpoint.getId(), last.getId());
+    }
+    
+    @Test
+    void entriesInsideTheLagDoNotCountTowardsACheckpoint() {
+        LocalDateTime now = LocalDateTime.now();
+        entry(ACCOUNT, "10.00", now.minusHours(1));
+        entry(ACCOUNT, "10.00", now.minusMinutes(30));
+        entry(ACCOUNT, "10.00", now.minusMinutes(4));
+        entry(ACCOUNT, "10.00", now.minusMinutes(1));
+        
+        // four entries, but only two are older than the lag
+        ledger().checkpoint();
+        
+        assertThat(checkpointRepository.findAll()).isEmpty();
+        assertThat(ledger().balanceAt(ACCOUNT, now)).isEqualByComparingTo("40.00");
+    }
+    
+    @Test
+    void restartedJobResumesFromTheLatestCheckpoint() throws Exception {
+        LocalDateTime base = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        entry(ACCOUNT, "100.00", base);
+        entry(ACCOUNT, "-10.00", base.plusMinutes(1));
+        entry(ACCOUNT, "20.00", base.plusMinutes(2));
+        ledger().checkpoint();
+        LocalDateTime firstCutoff = onlyCheckpoint(ACCOUNT).getAsOf();
+        
+        // new activity after the first cutoff, and entries of another account stamped before it,
+        // as if their transaction had outlived the lag: only a rescan from the beginning finds those
+        entry(ACCOUNT, "1.00", firstCutoff.plusNanos(1000));
+        entry(ACCOUNT, "2.00", firstCutoff.plusNanos(2000));
+        entry(ACCOUNT, "3.00", firstCutoff.plusNanos(3000));
+        entry(OTHER_ACCOUNT, "5.00", base);
+        entry(OTHER_ACCOUNT, "5.00", base.plusMinutes(1));
+        entry(OTHER_ACCOUNT, "5.00", base.plusMinutes(2));
+        Thread.sleep(10);
+        
+        LedgerService restarted = ledger();
+        restarted.checkpoint();
+        
+        BalanceCheckpoint second = checkpointRepository
+                .findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(ACCOUNT, LocalDateTime.now())
+                .orElseThrow();
+        assertThat(second.getAsOf()).isAfter(firstCutoff);
+        assertThat(second.getBalance()).isEqualByComparingTo("116.00");
+        assertThat(checkpointRepository.findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(
+                OTHER_ACCOUNT, LocalDateTime.now())).isEmpty();
+        
+        LocalDateTime now = LocalDateTime.now();
+        assertThat(restarted.balanceAt(ACCOUNT, now)).isEqualByComparingTo(replay(ACCOUNT, now));
+        assertThat(restarted.balanceAt(OTHER_ACCOUNT, now)).isEqualByComparingTo("15.00");
+    }
+    
+    private LedgerService ledger() {
+        return new LedgerService(entryRepository, checkpointRepository, transactionManager, CHECKPOINT_EVERY, LAG);
+    }
+    
+    private LedgerEntry entry(long accountId, String amount, LocalDateTime timestamp) {
+        return entryRepository.save(new LedgerEntry(accountId, null, new BigDecimal(amount),
+                TransactionRecord.TransactionType.DEPOSIT, timestamp));
+    }
+    
+    private BalanceCheckpoint onlyCheckpoint(long accountId) {
+        List<BalanceCheckpoint> checkpoints = checkpointRepository.findAll().stream()
+                .filter(checkpoint -> checkpoint.getAccountId() == accountId)
+                .toList();
+        assertThat(checkpoints).hasSize(1);
+        return checkpoints.get(0);
+    }
+    
+    /**
+     * Sum of every entry of the account up to and including at.
+     */
+    private BigDecimal replay(long accountId, LocalDateTime at) {
+        BigDecimal balance = BigDecimal.ZERO;
+        for (LedgerEntry entry : entryRepository.findAll()) {
+            if (entry.getAccountId() == accountId && !entry.getTimestamp().isAfter(at)) {
+                balance = balance.add(entry.getAmount());
+            }
+        }
+        return balance;
+    }
+    
+    /**
+     * Ids of the account's entries with after &lt; timestamp &lt;= upTo, in statement order.
+     */
+    private List<Long> replayedIds(long accountId, LocalDateTime after, LocalDateTime upTo) {
+        return entryRepository.findAll().stream()
+                .filter(entry -> entry.getAccountId() == accountId)
+                .filter(entry -> entry.getTimestamp().isAfter(after) && !entry.getTimestamp().isAfter(upTo))
+                .sorted(Comparator.comparing(LedgerEntry::getTimestamp).thenComparing(LedgerEntry::getId))
+                .map(LedgerEntry::getId)
+                .toList();
+    }
+}
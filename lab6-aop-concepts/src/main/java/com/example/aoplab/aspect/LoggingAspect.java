@@ -1,12 +1,12 @@
 package com.example.aoplab.aspect;
 
+import com.example.aoplab.audit.AuditEventType;
+import com.example.aoplab.audit.AuditLog;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.*;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
-
 /**
  * This aspect demonstrates all five key AOP concepts:
  * 1. Aspect: This class itself is an aspect (cross-cutting concern)
@@ -14,11 +14,22 @@ import java.util.Arrays;
  * 3. Join Point: The specific points in the execution where advice is applied
  * 4. Pointcut: The expressions that define where advice should be applied
  * 5. Weaving: The process of applying aspects to target objects (done by Spring)
+ *
+ * Advice does not write output itself: each one publishes an event to the AuditLog,
+ * which is written to the "audit" logger by a background thread.
  */
 @Component
 @Aspect
 public class LoggingAspect {
     
+    private final MethodMetadataCache metadataCache;
+    private final AuditLog auditLog;
+    
+    public LoggingAspect(MethodMetadataCache metadataCache, AuditLog auditLog) {
+        this.metadataCache = metadataCache;
+        this.auditLog = auditLog;
+    }
+    
     /**
      * POINTCUT: Defines a reusable pointcut expression
      * This pointcut matches all public methods in the UserService class
@@ -46,11 +57,7 @@ public class LoggingAspect {
     // TODO 2: Uncomment the @Before annotation to enable before advice for createUser method
     @Before("execution(* com.example.aoplab.service.UserService.createUser(..))")
     public void logBeforeCreateUser(JoinPoint joinPoint) {
-        System.out.println("=== BEFORE ADVICE ===");
-        System.out.println("About to create user with arguments: " + Arrays.toString(joinPoint.getArgs()));
-        System.out.println("Method signature: " + joinPoint.getSignature());
-        System.out.println("Target class: " + joinPoint.getTarget().getClass().getSimpleName());
-        System.out.println("====================");
+        auditLog.publish(AuditEventType.BEFORE, metadataCache.get(joinPoint), joinPoint.getArgs());
     }
     
     /**
@@ -61,11 +68,8 @@ public class LoggingAspect {
     // TODO 3: Uncomment the @AfterReturning annotation to enable after returning advice
     @AfterReturning(pointcut = "execution(* com.example.aoplab.service.UserService.findUserById(..))", returning = "result")
     public void logAfterReturningFindUser(JoinPoint joinPoint, Object result) {
-        System.out.println("=== AFTER RETURNING ADVICE ===");
-        System.out.println("Method: " + joinPoint.getSignature().getName());
-        System.out.println("Arguments: " + Arrays.toString(joinPoint.getArgs()));
-        System.out.println("Return value: " + result);
-        System.out.println("===============================");
+        auditLog.publish(AuditEventType.AFTER_RETURNING, metadataCache.get(joinPoint), joinPoint.getArgs(),
+                result, null, 0);
     }
     
     /**
@@ -76,21 +80,13 @@ public class LoggingAspect {
     // TODO 4: Uncomment the @Around annotation to enable around advice
     @Around("execution(* com.example.aoplab.service.UserService.updateUser(..))")
     public Object logAroundUpdateUser(ProceedingJoinPoint joinPoint) throws Throwable {
-        System.out.println("=== AROUND ADVICE - BEFORE ===");
-        System.out.println("About to execute: " + joinPoint.getSignature().getName());
-        System.out.println("Arguments: " + Arrays.toString(joinPoint.getArgs()));
-        
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
         
         // Execute the target method
         Object result = joinPoint.proceed();
         
-        long endTime = System.currentTimeMillis();
-        
-        System.out.println("=== AROUND ADVICE - AFTER ===");
-        System.out.println("Method completed in: " + (endTime - startTime) + " ms");
-        System.out.println("Return value: " + result);
-        System.out.println("=============================");
+        auditLog.publish(AuditEventType.AROUND, metadataCache.get(joinPoint), joinPoint.getArgs(),
+                result, null, System.nanoTime() - startTime);
         
         return result;
     }
@@ -103,12 +99,8 @@ public class LoggingAspect {
     // TODO 5: Uncomment the @AfterThrowing annotation to enable after throwing advice
     @AfterThrowing(pointcut = "execution(* com.example.aoplab.service.UserService.deleteUser(..))", throwing = "exception")
     public void logAfterThrowingDeleteUser(JoinPoint joinPoint, Exception exception) {
-        System.out.println("=== AFTER THROWING ADVICE ===");
-        System.out.println("Method: " + joinPoint.getSignature().getName());
-        System.out.println("Arguments: " + Arrays.toString(joinPoint.getArgs()));
-        System.out.println("Exception: " + exception.getMessage());
-        System.out.println("Exception type: " + exception.getClass().getSimpleName());
-        System.out.println("=============================");
+        auditLog.publish(AuditEventType.AFTER_THROWING, metadataCache.get(joinPoint), joinPoint.getArgs(),
+                null, exception, 0);
     }
     
     /**
@@ -119,10 +111,7 @@ public class LoggingAspect {
     // TODO 6: Uncomment the @After annotation to enable after advice
     @After("execution(* com.example.aoplab.service.UserService.getAllUsers(..))")
     public void logAfterGetAllUsers(JoinPoint joinPoint) {
-        System.out.println("=== AFTER ADVICE ===");
-        System.out.println("Method: " + joinPoint.getSignature().getName() + " has completed");
-        System.out.println("Arguments: " + Arrays.toString(joinPoint.getArgs()));
-        System.out.println("===================");
+        auditLog.publish(AuditEventType.AFTER, metadataCache.get(joinPoint), joinPoint.getArgs());
     }
     
     /**
@@ -132,7 +121,7 @@ public class LoggingAspect {
     // TODO 7: Uncomment the @Before annotation to enable pointcut reuse
     @Before("userServiceMethods()")
     public void logAllUserServiceMethods(JoinPoint joinPoint) {
-        System.out.println("--- POINTCUT REUSE: Executing " + joinPoint.getSignature().getName() + " ---");
+        auditLog.publish(AuditEventType.POINTCUT_REUSE, metadataCache.get(joinPoint), null);
     }
     
     /**
@@ -142,8 +131,7 @@ public class LoggingAspect {
     // TODO 8: Uncomment the @Before annotation to enable parameter-based advice
     @Before("userServiceMethodsWithLongParam()")
     public void logMethodsWithLongParam(JoinPoint joinPoint) {
-        System.out.println("--- METHOD WITH LONG PARAM: " + joinPoint.getSignature().getName() + " ---");
-        System.out.println("First parameter (Long): " + joinPoint.getArgs()[0]);
+        auditLog.publish(AuditEventType.LONG_PARAM, metadataCache.get(joinPoint), joinPoint.getArgs());
     }
     
     /**
@@ -153,8 +141,7 @@ public class LoggingAspect {
     // TODO 9: Uncomment the @AfterReturning annotation to enable return type-based advice
     @AfterReturning(pointcut = "userServiceMethodsReturningUser()", returning = "result")
     public void logUserReturningMethods(JoinPoint joinPoint, Object result) {
-        System.out.println("--- USER RETURNING METHOD: " + joinPoint.getSignature().getName() + " ---");
-        System.out.println("Returned User: " + result);
+        auditLog.publish(AuditEventType.USER_RETURNING, metadataCache.get(joinPoint), null, result, null, 0);
     }
     
     /**
@@ -164,11 +151,7 @@ public class LoggingAspect {
     // TODO 10: Uncomment the @AfterThrowing annotation to enable global exception logging
     @AfterThrowing(pointcut = "userServiceMethods()", throwing = "exception")
     public void logAllExceptions(JoinPoint joinPoint, Exception exception) {
-        System.out.println("=== GLOBAL EXCEPTION LOGGING ===");
-        System.out.println("Exception in method: " + joinPoint.getSignature().getName());
-        System.out.println("Exception message: " + exception.getMessage());
-        System.out.println("Stack trace:");
-        exception.printStackTrace();
-        System.out.println("=================================");
+        // The stack trace is written by the audit writer thread, not here
+        auditLog.publish(AuditEventType.EXCEPTION, metadataCache.get(joinPoint), null, null, exception, 0);
     }
 }
@@ -0,0 +1,83 @@
+package com.example.aoplab.aspect;
+
+import java.lang.reflect.Method;
+
+/**
+ * Per-method data the aspects need on every call, computed once.
+ *
+ * Names are interned and every console line that only depends on the method
+ * is prebuilt, so advice bodies do not rebuild the same strings per call.
+ */
+public final class MethodMetadata {
+
+    /**
+     * Console lines of the form prefix + method name + suffix.
+     */
+    public enum Line {
+        METHOD("Method: ", ""),
+        METHOD_COMPLETED("Method: ", " has completed"),
+        ABOUT_TO_EXECUTE("About to execute: ", ""),
+        POINTCUT_REUSE("--- POINTCUT REUSE: Executing ", " ---"),
+        LONG_PARAM("--- METHOD WITH LONG PARAM: ", " ---"),
+        USER_RETURNING("--- USER RETURNING METHOD: ", " ---"),
+        EXCEPTION_IN_METHOD("Exception in method: ", ""),
+        CHECKING_AUTHENTICATION("Checking authentication for: ", ""),
+        CHECKING_AUTHORIZATION("Checking authorization for: ", "");
+
+        private final String prefix;
+        private final String suffix;
+
+        Line(String prefix, String suffix) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+    }
+
+    private static final Line[] LINES = Line.values();
+
+    private final Method method;
+    private final String name;
+    private final String signature;
+    private final String targetClassName;
+    private final String operation;
+    private final String[] lines = new String[LINES.length];
+
+    MethodMetadata(Method method, String signature, Class<?> targetClass) {
+        this.method = method;
+        this.name = method.getName().intern();
+        this.signature = signature.intern();
+        this.targetClassName = targetClass.getSimpleName().intern();
+        this.operation = (targetClassName + "." + name).intern();
+        for (Line line : LINES) {
+            lines[line.ordinal()] = line.prefix + name + line.suffix;
+        }
+    }
+
+    public Method getMethod() { return method; }
+    public String getName() { return name; }
+    public String getSignature() { return signature; }
+    public String getTargetClassName() { return targetClassName; }
+    public String getOperation() { return operation; }
+
+    public String line(Line line) {
+        return lines[line.ordinal()];
+    }
+
+    /**
+     * Same output as Arrays.toString(args), built with a single buffer.
+     */
+    public String formatArgs(Object[] args) {
+        if (args.length == 0) {
+            return "[]";
+        }
+        StringBuilder builder = new StringBuilder(16 * args.length);
+        builder.append('[');
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(args[i]);
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.aoplab.aspect;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared lookup of {@link MethodMetadata} for all aspects, keyed by the advised method.
+ */
+@Component
+public class MethodMetadataCache {
+
+    private final Map<Method, MethodMetadata> metadata = new ConcurrentHashMap<>();
+
+    public MethodMetadata get(JoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodMetadata cached = metadata.get(method);
+        if (cached == null) {
+            cached = metadata.computeIfAbsent(method, key -> new MethodMetadata(
+                    key, joinPoint.getSignature().toString(), joinPoint.getTarget().getClass()));
+        }
+        return cached;
+    }
+}
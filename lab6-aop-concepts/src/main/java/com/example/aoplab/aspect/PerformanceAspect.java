@@ -1,19 +1,37 @@
 package com.example.aoplab.aspect;
 
+import com.example.aoplab.metrics.LatencyHistogram;
+import com.example.aoplab.metrics.PerformanceMetricsRegistry;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
  * This aspect demonstrates performance monitoring using AOP
  * It shows how aspects can be used for cross-cutting concerns like performance measurement
+ *
+ * Every call is recorded into a per-method latency histogram (see /actuator/performance).
+ * Console output is only printed when aop.performance.console-output=true.
  */
 @Component
 @Aspect
 public class PerformanceAspect {
     
+    private final MethodMetadataCache metadataCache;
+    private final PerformanceMetricsRegistry metricsRegistry;
+    private final boolean consoleOutput;
+    
+    public PerformanceAspect(MethodMetadataCache metadataCache,
+                             PerformanceMetricsRegistry metricsRegistry,
+                             @Value("${aop.performance.console-output:false}") boolean consoleOutput) {
+        this.metadataCache = metadataCache;
+        this.metricsRegistry = metricsRegistry;
+        this.consoleOutput = consoleOutput;
+    }
+    
     /**
      * POINTCUT: Matches all service layer methods
      */
@@ -27,32 +45,42 @@ public class PerformanceAspect {
     // TODO 11: Uncomment the @Around annotation to enable performance monitoring
     @Around("serviceLayerMethods()")
     public Object measurePerformance(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodMetadata metadata = metadataCache.get(joinPoint);
+        LatencyHistogram histogram = metricsRegistry.histogramFor(metadata.getMethod());
         long startTime = System.nanoTime();
         
         try {
             // Execute the target method
             Object result = joinPoint.proceed();
             
-            long endTime = System.nanoTime();
-            long duration = (endTime - startTime) / 1_000_000; // Convert to milliseconds
+            long duration = System.nanoTime() - startTime;
+            histogram.recordSuccess(duration);
             
-            System.out.println("=== PERFORMANCE MONITORING ===");
-            System.out.println("Method: " + joinPoint.getSignature().getName());
-            System.out.println("Execution time: " + duration + " ms");
-            System.out.println("===============================");
+            if (consoleOutput) {
+                System.out.println("=== PERFORMANCE MONITORING ===");
+                System.out.println(metadata.line(MethodMetadata.Line.METHOD));
+                System.out.println("Execution time: " + formatMillis(duration) + " ms");
+                System.out.println("===============================");
+            }
             
             return result;
         } catch (Exception e) {
-            long endTime = System.nanoTime();
-            long duration = (endTime - startTime) / 1_000_000;
+            long duration = System.nanoTime() - startTime;
+            histogram.recordFailure(duration);
             
-            System.out.println("=== PERFORMANCE MONITORING (ERROR) ===");
-            System.out.println("Method: " + joinPoint.getSignature().getName());
-            System.out.println("Execution time: " + duration + " ms (failed)");
-            System.out.println("Error: " + e.getMessage());
-            System.out.println("=====================================");
+            if (consoleOutput) {
+                System.out.println("=== PERFORMANCE MONITORING (ERROR) ===");
+                System.out.println(metadata.line(MethodMetadata.Line.METHOD));
+                System.out.println("Execution time: " + formatMillis(duration) + " ms (failed)");
+                System.out.println("Error: " + e.getMessage());
+                System.out.println("=====================================");
+            }
             
             throw e;
         }
     }
+    
+    private static String formatMillis(long nanos) {
+        return String.format("%.3f", nanos / 1_000_000.0);
+    }
 }
@@ -1,18 +1,44 @@
 package com.example.aoplab.aspect;
 
+import com.example.aoplab.security.AccessDecisionCache;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  * This aspect demonstrates security-related cross-cutting concerns
  * It shows how AOP can be used for authentication and authorization
+ *
+ * Checks are logged at DEBUG and only build their message when that level is
+ * enabled, so the advice adds no work beyond the (cached) decision itself.
  */
 @Component
 @Aspect
 public class SecurityAspect {
     
+    private static final Logger logger = LoggerFactory.getLogger(SecurityAspect.class);
+    
+    private static final String ANONYMOUS = "anonymous";
+    
+    private final MethodMetadataCache metadataCache;
+    private final AccessDecisionCache decisionCache;
+    private final String principalHeader;
+    
+    public SecurityAspect(MethodMetadataCache metadataCache,
+                          AccessDecisionCache decisionCache,
+                          @Value("${aop.security.principal-header:X-User}") String principalHeader) {
+        this.metadataCache = metadataCache;
+        this.decisionCache = decisionCache;
+        this.principalHeader = principalHeader;
+    }
+    
     /**
      * POINTCUT: Matches all controller methods
      */
@@ -28,15 +54,24 @@ public class SecurityAspect {
     public void modificationMethods() {}
     
     /**
-     * ADVICE: Simulate authentication check before controller methods
+     * ADVICE: Simulate authentication check before controller methods.
+     * A principal the provider does not authenticate is rejected with a
+     * SecurityException, like a failed authorization check.
      */
     // TODO 12: Uncomment the @Before annotation to enable authentication
     @Before("controllerMethods()")
     public void checkAuthentication(JoinPoint joinPoint) {
-        System.out.println("=== AUTHENTICATION CHECK ===");
-        System.out.println("Checking authentication for: " + joinPoint.getSignature().getName());
-        System.out.println("User authenticated: " + simulateAuthentication());
-        System.out.println("=============================");
+        String principal = currentPrincipal();
+        if (decisionCache.isAuthenticated(principal)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} - authenticated: true",
+                        metadataCache.get(joinPoint).line(MethodMetadata.Line.CHECKING_AUTHENTICATION));
+            }
+        } else {
+            logger.warn("{} - {} not authenticated, denying access",
+                    metadataCache.get(joinPoint).line(MethodMetadata.Line.CHECKING_AUTHENTICATION), principal);
+            throw new SecurityException("Access denied: Authentication required");
+        }
     }
     
     /**
@@ -45,31 +80,33 @@ public class SecurityAspect {
     // TODO 13: Uncomment the @Around annotation to enable authorization
     @Around("modificationMethods()")
     public Object checkAuthorization(ProceedingJoinPoint joinPoint) throws Throwable {
-        System.out.println("=== AUTHORIZATION CHECK ===");
-        System.out.println("Checking authorization for: " + joinPoint.getSignature().getName());
+        MethodMetadata metadata = metadataCache.get(joinPoint);
+        String principal = currentPrincipal();
         
-        if (simulateAuthorization()) {
-            System.out.println("User authorized - proceeding with operation");
+        if (decisionCache.isAuthorized(principal, metadata.getOperation())) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} - authorized, proceeding with operation",
+                        metadata.line(MethodMetadata.Line.CHECKING_AUTHORIZATION));
+            }
             return joinPoint.proceed();
         } else {
-            System.out.println("User not authorized - denying access");
+            logger.warn("{} - {} not authorized, denying access",
+                    metadata.line(MethodMetadata.Line.CHECKING_AUTHORIZATION), principal);
             throw new SecurityException("Access denied: Insufficient permissions");
         }
     }
     
     /**
-     * Simulate authentication logic
-     */
-    private boolean simulateAuthentication() {
-        // In a real application, this would check JWT tokens, session data, etc.
-        return true; // Simulate successful authentication
-    }
-    
-    /**
-     * Simulate authorization logic
+     * Resolve the caller from the principal header of the current request
      */
-    private boolean simulateAuthorization() {
-        // In a real application, this would check user roles and permissions
-        return true; // Simulate successful authorization
+    private String currentPrincipal() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            String principal = servletAttributes.getRequest().getHeader(principalHeader);
+            if (principal != null && !principal.isBlank()) {
+                return principal;
+            }
+        }
+        return ANONYMOUS;
     }
 }
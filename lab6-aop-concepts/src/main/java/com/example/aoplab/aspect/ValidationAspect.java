@@ -1,19 +1,34 @@
 package com.example.aoplab.aspect;
 
+import com.example.aoplab.validation.CompiledValidator;
+import com.example.aoplab.validation.ValidatorRegistry;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.annotation.Pointcut;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * This aspect demonstrates input validation using AOP
  * It shows how aspects can be used for cross-cutting validation concerns
+ *
+ * The rules themselves are declared as annotations on the UserService parameters and
+ * compiled once by the ValidatorRegistry; the advice only looks up and runs them.
  */
 @Component
 @Aspect
 public class ValidationAspect {
     
+    private final MethodMetadataCache metadataCache;
+    private final ValidatorRegistry validatorRegistry;
+    
+    public ValidationAspect(MethodMetadataCache metadataCache, ValidatorRegistry validatorRegistry) {
+        this.metadataCache = metadataCache;
+        this.validatorRegistry = validatorRegistry;
+    }
+    
     /**
      * POINTCUT: Matches methods that create users
      */
@@ -32,42 +47,7 @@ public class ValidationAspect {
     // TODO 14: Uncomment the @Before annotation to enable input validation
     @Before("createUserMethods()")
     public void validateCreateUserInput(JoinPoint joinPoint) {
-        Object[] args = joinPoint.getArgs();
-        
-        System.out.println("=== INPUT VALIDATION (CREATE USER) ===");
-        
-        if (args.length >= 3) {
-            String username = (String) args[0];
-            String fullName = (String) args[1];
-            String email = (String) args[2];
-            
-            // Validate username
-            if (username == null || username.trim().isEmpty()) {
-                throw new IllegalArgumentException("Username cannot be null or empty");
-            }
-            if (username.length() < 3) {
-                throw new IllegalArgumentException("Username must be at least 3 characters long");
-            }
-            
-            // Validate full name
-            if (fullName == null || fullName.trim().isEmpty()) {
-                throw new IllegalArgumentException("Full name cannot be null or empty");
-            }
-            
-            // Validate email
-            if (email == null || email.trim().isEmpty()) {
-                throw new IllegalArgumentException("Email cannot be null or empty");
-            }
-            if (!email.contains("@")) {
-                throw new IllegalArgumentException("Email must contain @ symbol");
-            }
-            
-            System.out.println("Validation passed for username: " + username);
-            System.out.println("Validation passed for fullName: " + fullName);
-            System.out.println("Validation passed for email: " + email);
-        }
-        
-        System.out.println("=====================================");
+        validate(joinPoint);
     }
     
     /**
@@ -76,38 +56,17 @@ public class ValidationAspect {
     // TODO 15: Uncomment the @Before annotation to enable update validation
     @Before("updateUserMethods()")
     public void validateUpdateUserInput(JoinPoint joinPoint) {
-        Object[] args = joinPoint.getArgs();
-        
-        System.out.println("=== INPUT VALIDATION (UPDATE USER) ===");
-        
-        if (args.length >= 3) {
-            Long id = (Long) args[0];
-            String fullName = (String) args[1];
-            String email = (String) args[2];
-            
-            // Validate ID
-            if (id == null || id <= 0) {
-                throw new IllegalArgumentException("User ID must be a positive number");
-            }
-            
-            // Validate full name
-            if (fullName == null || fullName.trim().isEmpty()) {
-                throw new IllegalArgumentException("Full name cannot be null or empty");
-            }
-            
-            // Validate email
-            if (email == null || email.trim().isEmpty()) {
-                throw new IllegalArgumentException("Email cannot be null or empty");
-            }
-            if (!email.contains("@")) {
-                throw new IllegalArgumentException("Email must contain @ symbol");
-            }
-            
-            System.out.println("Validation passed for ID: " + id);
-            System.out.println("Validation passed for fullName: " + fullName);
-            System.out.println("Validation passed for email: " + email);
+        validate(joinPoint);
+    }
+    
+    /**
+     * Runs the precompiled validator of the advised method, reporting every invalid argument at once
+     */
+    private void validate(JoinPoint joinPoint) {
+        CompiledValidator validator = validatorRegistry.forMethod(metadataCache.get(joinPoint).getMethod());
+        List<String> errors = validator.validate(joinPoint.getArgs());
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", errors));
         }
-        
-        System.out.println("======================================");
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.example.aoplab.audit;
+
+import com.example.aoplab.aspect.MethodMetadata;
+
+/**
+ * A preallocated ring buffer slot. Producers fill it in place and the writer
+ * clears it after formatting, so publishing an event does not allocate.
+ *
+ * Arguments and results are kept by reference and only formatted on the
+ * writer thread, so a mutable result may be logged with its later state.
+ */
+final class AuditEvent {
+
+    AuditEventType type;
+    MethodMetadata method;
+    Object[] args;
+    Object result;
+    Throwable error;
+    long durationNanos;
+    long timestamp;
+
+    void clear() {
+        type = null;
+        method = null;
+        args = null;
+        result = null;
+        error = null;
+    }
+}
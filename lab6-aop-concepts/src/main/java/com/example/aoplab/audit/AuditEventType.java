@@ -0,0 +1,29 @@
+package com.example.aoplab.audit;
+
+import com.example.aoplab.aspect.MethodMetadata;
+
+/**
+ * The kinds of events LoggingAspect publishes, one per advice.
+ */
+public enum AuditEventType {
+    BEFORE("BEFORE ADVICE", MethodMetadata.Line.METHOD),
+    AFTER_RETURNING("AFTER RETURNING ADVICE", MethodMetadata.Line.METHOD),
+    AROUND("AROUND ADVICE", MethodMetadata.Line.METHOD),
+    AFTER_THROWING("AFTER THROWING ADVICE", MethodMetadata.Line.METHOD),
+    AFTER("AFTER ADVICE", MethodMetadata.Line.METHOD_COMPLETED),
+    POINTCUT_REUSE("POINTCUT REUSE", MethodMetadata.Line.POINTCUT_REUSE),
+    LONG_PARAM("METHOD WITH LONG PARAM", MethodMetadata.Line.LONG_PARAM),
+    USER_RETURNING("USER RETURNING METHOD", MethodMetadata.Line.USER_RETURNING),
+    EXCEPTION("GLOBAL EXCEPTION LOGGING", MethodMetadata.Line.EXCEPTION_IN_METHOD);
+
+    private final String label;
+    private final MethodMetadata.Line line;
+
+    AuditEventType(String label, MethodMetadata.Line line) {
+        this.label = label;
+        this.line = line;
+    }
+
+    public String getLabel() { return label; }
+    public MethodMetadata.Line getLine() { return line; }
+}
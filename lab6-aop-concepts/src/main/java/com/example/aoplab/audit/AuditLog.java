@@ -0,0 +1,177 @@
+package com.example.aoplab.audit;
+
+import com.example.aoplab.aspect.MethodMetadata;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous audit pipeline behind LoggingAspect.
+ *
+ * Advice threads only claim a ring buffer slot and fill it in. A single
+ * background writer drains the buffer in batches and formats the events to
+ * the "audit" logger, so logging output (console or rolling file, see
+ * logging.file.name) never runs on the request thread.
+ */
+@Component
+public class AuditLog {
+
+    private static final Logger auditLogger = LoggerFactory.getLogger("audit");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AuditRingBuffer ringBuffer;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final int sampleRate;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    public AuditLog(@Value("${aop.audit.capacity:8192}") int capacity,
+                    @Value("${aop.audit.batch-size:256}") int batchSize,
+                    @Value("${aop.audit.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+                    @Value("${aop.audit.sample-rate:10}") int sampleRate) {
+        this.ringBuffer = new AuditRingBuffer(capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.writer = new Thread(this::runWriter, "audit-log-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Starts the background writer. Until then events only fill the buffer.
+     */
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
+
+    public void publish(AuditEventType type, MethodMetadata method, Object[] args) {
+        publish(type, method, args, null, null, 0);
+    }
+
+    public void publish(AuditEventType type, MethodMetadata method, Object[] args,
+                        Object result, Throwable error, long durationNanos) {
+        long position = claim();
+        if (position < 0) {
+            dropped.increment();
+            return;
+        }
+        AuditEvent event = ringBuffer.slot(position);
+        event.type = type;
+        event.method = method;
+        event.args = args;
+        event.result = result;
+        event.error = error;
+        event.durationNanos = durationNanos;
+        event.timestamp = System.currentTimeMillis();
+        ringBuffer.publish(position);
+        published.increment();
+    }
+
+    private long claim() {
+        switch (overflowPolicy) {
+            case BLOCK:
+                long position;
+                while ((position = ringBuffer.tryClaim()) < 0 && running) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                return position;
+            case SAMPLE:
+                if (ringBuffer.size() >= ringBuffer.capacity() / 2) {
+                    if (sampleCounter.incrementAndGet() % sampleRate != 0) {
+                        return -1;
+                    }
+                }
+                return ringBuffer.tryClaim();
+            default:
+                return ringBuffer.tryClaim();
+        }
+    }
+
+    private void runWriter() {
+        StringBuilder line = new StringBuilder(256);
+        while (running) {
+            if (drainBatch(line) == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        while (drainBatch(line) > 0) {
+            // flush whatever was published before shutdown
+        }
+    }
+
+    private int drainBatch(StringBuilder line) {
+        int count = 0;
+        AuditEvent event;
+        while (count < batchSize && (event = ringBuffer.poll()) != null) {
+            try {
+                write(event, line);
+            } catch (RuntimeException e) {
+                auditLogger.warn("Failed to write audit event", e);
+            } finally {
+                ringBuffer.release(event);
+            }
+            count++;
+        }
+        if (count > 0) {
+            written.add(count);
+        }
+        return count;
+    }
+
+    private void write(AuditEvent event, StringBuilder line) {
+        line.setLength(0);
+        line.append(event.timestamp).append(" [").append(event.type.getLabel()).append("] ")
+                .append(event.method.line(event.type.getLine()));
+        if (event.type == AuditEventType.BEFORE) {
+            line.append(" | Method signature: ").append(event.method.getSignature())
+                    .append(" | Target class: ").append(event.method.getTargetClassName());
+        }
+        if (event.args != null) {
+            line.append(" | Arguments: ").append(event.method.formatArgs(event.args));
+        }
+        if (event.type == AuditEventType.AROUND) {
+            line.append(" | Completed in: ").append(event.durationNanos).append(" ns");
+        }
+        if (event.result != null) {
+            line.append(" | Return value: ").append(event.result);
+        }
+        if (event.error != null) {
+            line.append(" | Exception: ").append(event.error.getClass().getSimpleName())
+                    .append(": ").append(event.error.getMessage());
+        }
+        if (event.type == AuditEventType.EXCEPTION) {
+            auditLogger.warn(line.toString(), event.error);
+        } else {
+            auditLogger.info(line.toString());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public OverflowPolicy getOverflowPolicy() { return overflowPolicy; }
+    public int getCapacity() { return ringBuffer.capacity(); }
+    public int getPending() { return ringBuffer.size(); }
+    public long getPublished() { return published.sum(); }
+    public long getWritten() { return written.sum(); }
+    public long getDropped() { return dropped.sum(); }
+}
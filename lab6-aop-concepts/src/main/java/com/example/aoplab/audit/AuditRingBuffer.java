@@ -0,0 +1,88 @@
+package com.example.aoplab.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring buffer for many producers and a single consumer.
+ *
+ * Each slot carries a sequence number: a producer may claim slot {@code n} when
+ * its sequence equals {@code n}, and publishes it by setting the sequence to
+ * {@code n + 1}; the consumer hands the slot back by setting it to
+ * {@code n + capacity}. Slots are preallocated and reused.
+ */
+final class AuditRingBuffer {
+
+    private final AuditEvent[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    AuditRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity) - 1) << 1;
+        this.slots = new AuditEvent[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new AuditEvent();
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Claims the next free slot, or returns -1 when the buffer is full.
+     */
+    long tryClaim() {
+        while (true) {
+            long position = tail.get();
+            long difference = sequences.get(index(position)) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+            } else if (difference < 0) {
+                return -1;
+            }
+        }
+    }
+
+    AuditEvent slot(long position) {
+        return slots[index(position)];
+    }
+
+    void publish(long position) {
+        sequences.set(index(position), position + 1);
+    }
+
+    /**
+     * Returns the next published event, or null if none is ready. Only the
+     * consumer thread may call this, followed by {@link #release(AuditEvent)}.
+     */
+    AuditEvent poll() {
+        long position = head;
+        if (sequences.get(index(position)) != position + 1) {
+            return null;
+        }
+        return slots[index(position)];
+    }
+
+    void release(AuditEvent event) {
+        long position = head;
+        event.clear();
+        sequences.set(index(position), position + slots.length);
+        head = position + 1;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    private int index(long position) {
+        return (int) (position & mask);
+    }
+}
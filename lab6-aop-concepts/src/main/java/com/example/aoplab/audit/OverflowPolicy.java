@@ -0,0 +1,13 @@
+package com.example.aoplab.audit;
+
+/**
+ * What AuditLog does when the ring buffer cannot take another event.
+ */
+public enum OverflowPolicy {
+    /** Discard the event and count it as dropped. */
+    DROP,
+    /** Wait for the writer to free a slot; this can add latency to the caller. */
+    BLOCK,
+    /** Once the buffer is half full keep only one in every sample-rate events; drop when full. */
+    SAMPLE
+}
@@ -1,35 +1,57 @@
 package com.example.aoplab.controller;
 
 import com.example.aoplab.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
-@RequestMapping("/api/users")
+@RequestMapping("/api")
 public class UserController {
     
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    // Users written between two flushes of a stream
+    private static final int STREAM_FLUSH_EVERY = 1000;
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
     private final UserService userService;
+    private final ObjectMapper objectMapper;
+    // Without FLUSH_AFTER_WRITE_VALUE, so a stream is not flushed (one write to the socket) per user
+    private final ObjectWriter userWriter;
     
-    public UserController(UserService userService) {
+    public UserController(UserService userService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.userWriter = objectMapper.writerFor(UserService.User.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
     
-    @PostMapping
+    @PostMapping("/users")
     public ResponseEntity<UserService.User> createUser(@RequestBody CreateUserRequest request) {
         UserService.User user = userService.createUser(request.username, request.fullName, request.email);
         return ResponseEntity.ok(user);
     }
     
-    @GetMapping("/{id}")
+    @GetMapping("/users/{id}")
     public ResponseEntity<UserService.User> getUserById(@PathVariable Long id) {
         return userService.findUserById(id)
                 .map(user -> ResponseEntity.ok(user))
                 .orElse(ResponseEntity.notFound().build());
     }
     
-    @PutMapping("/{id}")
+    @PutMapping("/users/{id}")
     public ResponseEntity<UserService.User> updateUser(@PathVariable Long id, @RequestBody UpdateUserRequest request) {
         try {
             UserService.User user = userService.updateUser(id, request.fullName, request.email);
@@ -39,7 +61,7 @@ public class UserController {
         }
     }
     
-    @DeleteMapping("/{id}")
+    @DeleteMapping("/users/{id}")
     public ResponseEntity<String> deleteUser(@PathVariable Long id) {
         try {
             userService.deleteUser(id);
@@ -49,13 +71,61 @@ public class UserController {
         }
     }
     
-    @GetMapping
-    public ResponseEntity<List<UserService.User>> getAllUsers() {
+    /**
+     * Without parameters, returns all users. With after and/or limit, returns
+     * one page (keyset pagination): GET /api/users?limit=50 for the first page,
+     * then GET /api/users?after={nextCursor}&limit=50 until nextCursor is null.
+     * The limit defaults to 100.
+     */
+    @GetMapping("/users")
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) Long after,
+                                         @RequestParam(required = false) Integer limit) {
+        if (after != null || limit != null) {
+            return getUsersPage(after, limit != null ? limit : DEFAULT_PAGE_SIZE);
+        }
         List<UserService.User> users = userService.getAllUsers();
         return ResponseEntity.ok(users);
     }
     
-    @GetMapping("/username/{username}")
+    private ResponseEntity<UserPage> getUsersPage(Long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<UserService.User> users = userService.getUsersAfter(after, pageSize);
+        
+        UserPage page = new UserPage();
+        page.users = users;
+        page.nextCursor = users.size() == pageSize ? users.get(users.size() - 1).getId() : null;
+        return ResponseEntity.ok(page);
+    }
+    
+    /**
+     * Streams every user as newline-delimited JSON, written to the response
+     * one user at a time instead of building the whole list first. The output
+     * is buffered and flushed every STREAM_FLUSH_EVERY users.
+     */
+    @GetMapping("/users/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<UserService.User> users = userService.streamAllUsers()) {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+                generator.setRootValueSeparator(null);
+                // one SequenceWriter for the whole stream, so the serializer state is not rebuilt per user
+                SequenceWriter sequence = userWriter.writeValues(generator);
+                Iterator<UserService.User> iterator = users.iterator();
+                int written = 0;
+                while (iterator.hasNext()) {
+                    sequence.write(iterator.next());
+                    generator.writeRaw('\n');
+                    if (++written % STREAM_FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                }
+                generator.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+    
+    @GetMapping("/users/username/{username}")
     public ResponseEntity<UserService.User> getUserByUsername(@PathVariable String username) {
         try {
             UserService.User user = userService.getUserByUsername(username);
@@ -65,7 +135,37 @@ public class UserController {
         }
     }
     
-    @PostMapping("/simulate-error")
+    /**
+     * Batch operations: one call (and one pass through the security, validation,
+     * logging and performance aspects) for many users, with a result per item.
+     * Mapped at /api/users:batch, a custom method on the collection rather than
+     * a child resource. The class maps /api because Spring would turn a method
+     * path of ":batch" into "/:batch".
+     */
+    @PostMapping("/users:batch")
+    public ResponseEntity<List<UserService.BatchResult>> createUsersBatch(@RequestBody List<CreateUserRequest> requests) {
+        List<UserService.User> drafts = new ArrayList<>(requests.size());
+        for (CreateUserRequest request : requests) {
+            drafts.add(new UserService.User(null, request.username, request.fullName, request.email));
+        }
+        return ResponseEntity.ok(userService.createUsers(drafts));
+    }
+    
+    @PutMapping("/users:batch")
+    public ResponseEntity<List<UserService.BatchResult>> updateUsersBatch(@RequestBody List<BatchUpdateRequest> requests) {
+        List<UserService.User> changes = new ArrayList<>(requests.size());
+        for (BatchUpdateRequest request : requests) {
+            changes.add(new UserService.User(request.id, null, request.fullName, request.email));
+        }
+        return ResponseEntity.ok(userService.updateUsers(changes));
+    }
+    
+    @DeleteMapping("/users:batch")
+    public ResponseEntity<List<UserService.BatchResult>> deleteUsersBatch(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(userService.deleteUsers(ids));
+    }
+    
+    @PostMapping("/users/simulate-error")
     public ResponseEntity<String> simulateError() {
         userService.simulateError();
         return ResponseEntity.ok("This should not be reached");
@@ -82,4 +182,16 @@ public class UserController {
         public String fullName;
         public String email;
     }
+    
+    public static class BatchUpdateRequest {
+        public Long id;
+        public String fullName;
+        public String email;
+    }
+    
+    // Response DTOs
+    public static class UserPage {
+        public List<UserService.User> users;
+        public Long nextCursor;
+    }
 }
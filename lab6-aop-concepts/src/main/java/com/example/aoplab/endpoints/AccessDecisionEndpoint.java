@@ -0,0 +1,56 @@
+package com.example.aoplab.endpoints;
+
+import com.example.aoplab.security.AccessDecisionCache;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes the AccessDecisionCache statistics and allows cached decisions to be
+ * invalidated, for all principals or for a single one.
+ */
+@Component
+@Endpoint(id = "accessdecisions")
+public class AccessDecisionEndpoint {
+    
+    private final AccessDecisionCache cache;
+    
+    public AccessDecisionEndpoint(AccessDecisionCache cache) {
+        this.cache = cache;
+    }
+    
+    @ReadOperation
+    public Map<String, Object> getStats() {
+        long lookups = cache.getHits() + cache.getMisses() + cache.getCoalesced();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ttl", cache.getTtl().toString());
+        stats.put("maxEntries", cache.getMaxEntries());
+        stats.put("size", cache.getSize());
+        stats.put("principals", cache.getPrincipalCount());
+        stats.put("hits", cache.getHits());
+        stats.put("staleHits", cache.getStaleHits());
+        stats.put("misses", cache.getMisses());
+        stats.put("coalesced", cache.getCoalesced());
+        stats.put("hitRate", lookups > 0 ? (double) cache.getHits() / lookups : 0.0);
+        stats.put("loads", cache.getLoads());
+        stats.put("loadFailures", cache.getLoadFailures());
+        stats.put("expirations", cache.getExpirations());
+        stats.put("evictions", cache.getEvictions());
+        return stats;
+    }
+    
+    @DeleteOperation
+    public Map<String, Object> invalidateAll() {
+        return Map.of("invalidated", cache.invalidateAll());
+    }
+    
+    @DeleteOperation
+    public Map<String, Object> invalidate(@Selector String principal) {
+        return Map.of("principal", principal, "invalidated", cache.invalidate(principal));
+    }
+}
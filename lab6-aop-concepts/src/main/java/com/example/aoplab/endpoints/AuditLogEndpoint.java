@@ -0,0 +1,35 @@
+package com.example.aoplab.endpoints;
+
+import com.example.aoplab.audit.AuditLog;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes the AuditLog pipeline counters.
+ */
+@Component
+@Endpoint(id = "auditlog")
+public class AuditLogEndpoint {
+
+    private final AuditLog auditLog;
+
+    public AuditLogEndpoint(AuditLog auditLog) {
+        this.auditLog = auditLog;
+    }
+
+    @ReadOperation
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("overflowPolicy", auditLog.getOverflowPolicy());
+        stats.put("capacity", auditLog.getCapacity());
+        stats.put("pending", auditLog.getPending());
+        stats.put("published", auditLog.getPublished());
+        stats.put("written", auditLog.getWritten());
+        stats.put("dropped", auditLog.getDropped());
+        return stats;
+    }
+}
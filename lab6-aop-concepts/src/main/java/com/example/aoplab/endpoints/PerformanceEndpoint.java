@@ -0,0 +1,56 @@
+package com.example.aoplab.endpoints;
+
+import com.example.aoplab.metrics.LatencyHistogram;
+import com.example.aoplab.metrics.PerformanceMetricsRegistry;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes the latency percentiles recorded by PerformanceAspect.
+ * All durations are reported in nanoseconds.
+ */
+@Component
+@Endpoint(id = "performance")
+public class PerformanceEndpoint {
+
+    private final PerformanceMetricsRegistry registry;
+
+    public PerformanceEndpoint(PerformanceMetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> getAllMethods() {
+        Map<String, Object> methods = new LinkedHashMap<>();
+        registry.snapshots().forEach((name, snapshot) -> methods.put(name, toMap(snapshot)));
+        return methods;
+    }
+
+    @ReadOperation
+    public Map<String, Object> getMethod(@Selector String methodName) {
+        LatencyHistogram.Snapshot snapshot = registry.snapshot(methodName);
+        if (snapshot == null) {
+            return Map.of("error", "No measurements for method: " + methodName);
+        }
+        return toMap(snapshot);
+    }
+
+    private Map<String, Object> toMap(LatencyHistogram.Snapshot snapshot) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("count", snapshot.getCount());
+        values.put("failures", snapshot.getFailures());
+        values.put("mean", snapshot.getMeanNanos());
+        values.put("p50", snapshot.getValueAtPercentile(50));
+        values.put("p90", snapshot.getValueAtPercentile(90));
+        values.put("p99", snapshot.getValueAtPercentile(99));
+        values.put("p999", snapshot.getValueAtPercentile(99.9));
+        values.put("max", snapshot.getMaxNanos());
+        values.put("unit", "ns");
+        return values;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.aoplab.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds one latency histogram per advised method.
+ *
+ * Histograms are keyed by the {@link Method} itself, so after the first call a
+ * lookup is a single hash map read with no string building. They are reported
+ * under the method's signature, e.g. UserService.createUser(String,String,String),
+ * so overloads are measured apart.
+ */
+@Component
+public class PerformanceMetricsRegistry {
+
+    private final Map<Method, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histogramsByName = new ConcurrentHashMap<>();
+
+    public LatencyHistogram histogramFor(Method method) {
+        LatencyHistogram histogram = histograms.get(method);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(method, this::register);
+        }
+        return histogram;
+    }
+
+    private LatencyHistogram register(Method method) {
+        return histogramsByName.computeIfAbsent(nameOf(method), key -> new LatencyHistogram());
+    }
+
+    static String nameOf(Method method) {
+        StringJoiner parameters = new StringJoiner(",", "(", ")");
+        for (Class<?> type : method.getParameterTypes()) {
+            parameters.add(type.getSimpleName());
+        }
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName() + parameters;
+    }
+
+    public Map<String, LatencyHistogram.Snapshot> snapshots() {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+        histogramsByName.forEach((name, histogram) -> snapshots.put(name, histogram.snapshot()));
+        return snapshots;
+    }
+
+    public LatencyHistogram.Snapshot snapshot(String name) {
+        LatencyHistogram histogram = histogramsByName.get(name);
+        return histogram != null ? histogram.snapshot() : null;
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.aoplab.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the decisions of the {@link AccessDecisionProvider} used by SecurityAspect.
+ *
+ * Decisions are stored per principal and then per operation, so a lookup is two
+ * hash map reads with no composite key to build. Entries expire after the
+ * configured TTL and the cache is bounded by a total entry count; when it is
+ * full, expired entries are purged first and then arbitrary ones are evicted
+ * until the cache is back to 90% of its bound.
+ *
+ * Concurrent misses for the same principal and operation are coalesced: only
+ * one thread calls the provider and the others wait for its answer. Callers
+ * only wait when there is no earlier decision: once an entry has expired, one
+ * caller asks the provider again while the others keep getting the expired
+ * decision until the new one is in.
+ */
+@Component
+public class AccessDecisionCache {
+    
+    /** Operation key used for the authentication decision of a principal. */
+    static final String AUTHENTICATION = "#authenticate";
+    
+    private final AccessDecisionProvider provider;
+    private final long ttlNanos;
+    private final int maxEntries;
+    
+    private final Map<String, Map<String, Decision>> decisions = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    
+    public AccessDecisionCache(AccessDecisionProvider provider,
+                               @Value("${aop.security.decision-cache.ttl:5m}") Duration ttl,
+                               @Value("${aop.security.decision-cache.max-entries:10000}") int maxEntries) {
+        this.provider = provider;
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+    
+    public boolean isAuthenticated(String principal) {
+        return decide(principal, AUTHENTICATION);
+    }
+    
+    public boolean isAuthorized(String principal, String operation) {
+        return decide(principal, operation);
+    }
+    
+    private boolean decide(String principal, String operation) {
+        Map<String, Decision> byOperation = decisions.get(principal);
+        long now = System.nanoTime();
+        Decision decision = byOperation != null ? byOperation.get(operation) : null;
+        if (decision != null) {
+            if (!decision.isDone()) {
+                coalesced.increment();
+                return decision.await();
+            }
+            if (!decision.isExpiredAt(now)) {
+                hits.increment();
+                return decision.value();
+            }
+            if (!decision.startRefresh()) {
+                // another thread is already asking the provider; the expired answer stands until then
+                hits.increment();
+                staleHits.increment();
+                return decision.value();
+            }
+            misses.increment();
+            expirations.increment();
+            return refresh(principal, operation, decision);
+        }
+        misses.increment();
+        return load(principal, operation, now);
+    }
+    
+    private boolean load(String principal, String operation, long now) {
+        Decision fresh = new Decision();
+        Decision[] existing = new Decision[1];
+        // Entries are added and removed only inside compute on their principal, so the size
+        // always matches the maps: no insert can land in a map that invalidate has just dropped
+        decisions.compute(principal, (key, byOperation) -> {
+            Map<String, Decision> operations = byOperation != null ? byOperation : new ConcurrentHashMap<>();
+            Decision current = operations.get(operation);
+            if (current == null) {
+                operations.put(operation, fresh);
+                size.incrementAndGet();
+            } else {
+                existing[0] = current;
+            }
+            return operations;
+        });
+        if (existing[0] != null) {
+            // another thread is already asking the provider, or has just answered
+            coalesced.increment();
+            return existing[0].await();
+        }
+        if (size.get() > maxEntries) {
+            evict(now);
+        }
+        try {
+            boolean value = ask(principal, operation);
+            fresh.complete(value, System.nanoTime() + ttlNanos);
+            return value;
+        } catch (Throwable e) {
+            // any failure, errors included, must release the waiters and unlink the entry, or they block for good
+            loadFailures.increment();
+            decisions.computeIfPresent(principal, (key, byOperation) -> {
+                if (byOperation.remove(operation, fresh)) {
+                    size.decrementAndGet();
+                }
+                return byOperation.isEmpty() ? null : byOperation;
+            });
+            fresh.fail(e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Asks the provider again for an expired decision. The new decision replaces
+     * the expired one only if that is still cached, so an invalidation made in
+     * the meantime is not undone. If the provider fails, the expired decision
+     * stays and the next caller tries again.
+     */
+    private boolean refresh(String principal, String operation, Decision expired) {
+        boolean value;
+        try {
+            value = ask(principal, operation);
+        } catch (Throwable e) {
+            loadFailures.increment();
+            expired.endRefresh();
+            throw e;
+        }
+        Decision fresh = Decision.completed(value, System.nanoTime() + ttlNanos);
+        decisions.computeIfPresent(principal, (key, byOperation) -> {
+            byOperation.replace(operation, expired, fresh);
+            return byOperation;
+        });
+        return value;
+    }
+    
+    private boolean ask(String principal, String operation) {
+        boolean value = AUTHENTICATION.equals(operation)
+                ? provider.authenticate(principal)
+                : provider.authorize(principal, operation);
+        loads.increment();
+        return value;
+    }
+    
+    /**
+     * Purges expired entries and, if the cache is still over its bound, evicts
+     * completed entries down to 90% of it, so that the next misses do not each
+     * have to walk the whole cache again.
+     */
+    private void evict(long now) {
+        purge(now, false, maxEntries);
+        if (size.get() > maxEntries) {
+            purge(now, true, maxEntries - Math.max(1, maxEntries / 10));
+        }
+    }
+    
+    /**
+     * Removes expired entries, or when {@code overflow} is set, any completed
+     * entries until the size is down to {@code target}.
+     */
+    private void purge(long now, boolean overflow, int target) {
+        for (String principal : decisions.keySet()) {
+            decisions.computeIfPresent(principal, (key, byOperation) -> {
+                for (Iterator<Decision> entries = byOperation.values().iterator(); entries.hasNext(); ) {
+                    Decision decision = entries.next();
+                    if (decision.isDone() && (overflow || decision.isExpiredAt(now))) {
+                        entries.remove();
+                        size.decrementAndGet();
+                        evictions.increment();
+                        if (overflow && size.get() <= target) {
+                            break;
+                        }
+                    }
+                }
+                return byOperation.isEmpty() ? null : byOperation;
+            });
+            if (overflow && size.get() <= target) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Drops every cached decision of a principal, e.g. after its roles changed.
+     */
+    public int invalidate(String principal) {
+        int[] removed = new int[1];
+        decisions.computeIfPresent(principal, (key, byOperation) -> {
+            removed[0] = byOperation.size();
+            size.addAndGet(-removed[0]);
+            return null;
+        });
+        return removed[0];
+    }
+    
+    public int invalidateAll() {
+        int removed = 0;
+        for (String principal : decisions.keySet()) {
+            removed += invalidate(principal);
+        }
+        return removed;
+    }
+    
+    public int getSize() { return size.get(); }
+    public int getMaxEntries() { return maxEntries; }
+    public Duration getTtl() { return Duration.ofNanos(ttlNanos); }
+    public int getPrincipalCount() { return decisions.size(); }
+    public long getHits() { return hits.sum(); }
+    public long getStaleHits() { return staleHits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getCoalesced() { return coalesced.sum(); }
+    public long getLoads() { return loads.sum(); }
+    public long getLoadFailures() { return loadFailures.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+    public long getExpirations() { return expirations.sum(); }
+    
+    /**
+     * A cached decision. While the provider is being asked, other threads wait on
+     * the future; once it completes, the value and expiry are read from plain
+     * fields so a hit never touches the future. After it expires, the refreshing
+     * flag lets exactly one thread ask the provider again.
+     */
+    private static final class Decision {
+        
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile boolean done;
+        private boolean value;
+        private long expiresAt;
+        
+        static Decision completed(boolean value, long expiresAt) {
+            Decision decision = new Decision();
+            decision.complete(value, expiresAt);
+            return decision;
+        }
+        
+        boolean isDone() {
+            return done;
+        }
+        
+        boolean value() {
+            return value;
+        }
+        
+        boolean isExpiredAt(long now) {
+            return now - expiresAt >= 0;
+        }
+        
+        boolean await() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        
+        void complete(boolean value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.done = true;
+            future.complete(value);
+        }
+        
+        void fail(Throwable error) {
+            future.completeExceptionally(error);
+        }
+        
+        boolean startRefresh() {
+            return !refreshing.get() && refreshing.compareAndSet(false, true);
+        }
+        
+        void endRefresh() {
+            refreshing.set(false);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.aoplab.security;
+
+/**
+ * Source of authentication and authorization decisions used by SecurityAspect.
+ *
+ * Implementations may be slow (a principal or permission store lookup); their
+ * answers are cached by AccessDecisionCache.
+ */
+public interface AccessDecisionProvider {
+    
+    boolean authenticate(String principal);
+    
+    boolean authorize(String principal, String operation);
+}
@@ -0,0 +1,23 @@
+package com.example.aoplab.security;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Default provider that grants everything. Register another provider as
+ * {@code @Primary} to replace it.
+ */
+@Component
+public class SimulatedAccessDecisionProvider implements AccessDecisionProvider {
+    
+    @Override
+    public boolean authenticate(String principal) {
+        // In a real application, this would check JWT tokens, session data, etc.
+        return true; // Simulate successful authentication
+    }
+    
+    @Override
+    public boolean authorize(String principal, String operation) {
+        // In a real application, this would check user roles and permissions
+        return true; // Simulate successful authorization
+    }
+}
@@ -1,65 +1,226 @@
 package com.example.aoplab.service;
 
+import com.example.aoplab.validation.CompiledValidator;
+import com.example.aoplab.validation.Contains;
+import com.example.aoplab.validation.MinLength;
+import com.example.aoplab.validation.NotBlank;
+import com.example.aoplab.validation.Positive;
+import com.example.aoplab.validation.ValidatorRegistry;
 import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
+/**
+ * Thread-safe in-memory user store.
+ *
+ * Users are held in an id-ordered concurrent map with a second map indexing
+ * ids by username (usernames are unique). Ids come from an atomic sequence
+ * and are never reused after a delete, so the id order doubles as a stable
+ * cursor for keyset pagination and streaming.
+ *
+ * Stored users are never modified: an update publishes a new User with a
+ * compare-and-set on the id map, so readers and the getAllUsers snapshot
+ * always see a user as it was before or after an update, never in between.
+ */
 @Service
 public class UserService {
     
-    private final List<User> users = new ArrayList<>();
+    private final ConcurrentNavigableMap<Long, User> usersById = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> idsByUsername = new ConcurrentHashMap<>();
+    private final AtomicLong idSequence = new AtomicLong();
     
-    public UserService() {
+    // Bumped after every insert/update/delete; getAllUsers rebuilds its snapshot when it changes
+    private final AtomicLong modificationCount = new AtomicLong();
+    private volatile Snapshot snapshot;
+    
+    private final CompiledValidator createValidator;
+    private final CompiledValidator updateValidator;
+    
+    public UserService(ValidatorRegistry validatorRegistry) throws NoSuchMethodException {
+        // Compile the parameter constraints below once, at startup
+        validatorRegistry.compileAll(UserService.class);
+        this.createValidator = validatorRegistry.forMethod(
+                UserService.class.getMethod("createUser", String.class, String.class, String.class));
+        this.updateValidator = validatorRegistry.forMethod(
+                UserService.class.getMethod("updateUser", Long.class, String.class, String.class));
+        
         // Initialize with some sample users
-        users.add(new User(1L, "john.doe", "John Doe", "john@example.com"));
-        users.add(new User(2L, "jane.smith", "Jane Smith", "jane@example.com"));
-        users.add(new User(3L, "bob.wilson", "Bob Wilson", "bob@example.com"));
+        insert("john.doe", "John Doe", "john@example.com");
+        insert("jane.smith", "Jane Smith", "jane@example.com");
+        insert("bob.wilson", "Bob Wilson", "bob@example.com");
     }
     
-    public User createUser(String username, String fullName, String email) {
+    public User createUser(@NotBlank(message = "Username cannot be null or empty")
+                           @MinLength(value = 3, message = "Username must be at least 3 characters long") String username,
+                           @NotBlank(message = "Full name cannot be null or empty") String fullName,
+                           @NotBlank(message = "Email cannot be null or empty")
+                           @Contains(value = "@", message = "Email must contain @ symbol") String email) {
         // TODO 2: This method will be advised by @Before aspect
-        User user = new User((long) (users.size() + 1), username, fullName, email);
-        users.add(user);
+        return insert(username, fullName, email);
+    }
+    
+    private User insert(String username, String fullName, String email) {
+        long id = idSequence.incrementAndGet();
+        // Claim the username first, so that of two concurrent creates only one ever becomes visible.
+        // Until the user is put below the claimed id resolves to nothing and lookups report not found.
+        if (idsByUsername.putIfAbsent(username, id) != null) {
+            throw new RuntimeException("User already exists with username: " + username);
+        }
+        User user = new User(id, username, fullName, email);
+        usersById.put(id, user);
+        modificationCount.incrementAndGet();
         return user;
     }
     
     public Optional<User> findUserById(Long id) {
         // TODO 3: This method will be advised by @AfterReturning aspect
-        return users.stream()
-                .filter(user -> user.getId().equals(id))
-                .findFirst();
+        return id == null ? Optional.empty() : Optional.ofNullable(usersById.get(id));
     }
     
-    public User updateUser(Long id, String fullName, String email) {
+    public User updateUser(@Positive(message = "User ID must be a positive number") Long id,
+                           @NotBlank(message = "Full name cannot be null or empty") String fullName,
+                           @NotBlank(message = "Email cannot be null or empty")
+                           @Contains(value = "@", message = "Email must contain @ symbol") String email) {
         // TODO 4: This method will be advised by @Around aspect
-        User user = findUserById(id)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
-        
-        user.setFullName(fullName);
-        user.setEmail(email);
-        return user;
+        while (true) {
+            User current = findUserById(id)
+                    .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+            
+            // The username (and so the username index) never changes; only the stored instance is replaced
+            User updated = new User(current.getId(), current.getUsername(), fullName, email);
+            if (usersById.replace(id, current, updated)) {
+                modificationCount.incrementAndGet();
+                return updated;
+            }
+        }
     }
     
     public void deleteUser(Long id) {
         // TODO 5: This method will be advised by @AfterThrowing aspect
-        User user = findUserById(id)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
-        
-        users.remove(user);
+        while (true) {
+            User user = findUserById(id)
+                    .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+            
+            // Fails if a concurrent update replaced the user in between; look it up again
+            if (usersById.remove(id, user)) {
+                idsByUsername.remove(user.getUsername(), id);
+                modificationCount.incrementAndGet();
+                return;
+            }
+        }
     }
     
     public List<User> getAllUsers() {
         // TODO 6: This method will be advised by @After aspect
-        return new ArrayList<>(users);
+        long version = modificationCount.get();
+        Snapshot current = snapshot;
+        if (current == null || current.version != version) {
+            current = new Snapshot(version, List.copyOf(usersById.values()));
+            snapshot = current;
+        }
+        return current.users;
+    }
+    
+    /**
+     * Returns up to {@code limit} users with an id greater than {@code afterId}
+     * (from the start when null), walking only the requested range.
+     */
+    public List<User> getUsersAfter(Long afterId, int limit) {
+        Map<Long, User> range = afterId == null ? usersById : usersById.tailMap(afterId, false);
+        List<User> page = new ArrayList<>(Math.min(limit, 256));
+        for (User user : range.values()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(user);
+        }
+        return page;
+    }
+    
+    /**
+     * Lazily walks all users in id order without copying the store.
+     * The stream is weakly consistent with concurrent writes.
+     */
+    public Stream<User> streamAllUsers() {
+        return usersById.values().stream();
     }
     
     public User getUserByUsername(String username) {
         // TODO 7: This method will demonstrate pointcut expressions
-        return users.stream()
-                .filter(user -> user.getUsername().equals(username))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("User not found with username: " + username));
+        Long id = username == null ? null : idsByUsername.get(username);
+        User user = id == null ? null : usersById.get(id);
+        if (user == null) {
+            throw new RuntimeException("User not found with username: " + username);
+        }
+        return user;
+    }
+    
+    /**
+     * Creates many users in one call. The service is entered (and advised) once
+     * for the whole batch; every item is validated and created on its own and
+     * reported in a result at the same index.
+     */
+    public List<BatchResult> createUsers(List<User> drafts) {
+        List<BatchResult> results = new ArrayList<>(drafts.size());
+        for (int i = 0; i < drafts.size(); i++) {
+            User draft = drafts.get(i);
+            try {
+                List<String> errors = createValidator.validate(
+                        new Object[] {draft.getUsername(), draft.getFullName(), draft.getEmail()});
+                if (!errors.isEmpty()) {
+                    results.add(BatchResult.failed(i, String.join("; ", errors)));
+                    continue;
+                }
+                User user = createUser(draft.getUsername(), draft.getFullName(), draft.getEmail());
+                results.add(BatchResult.succeeded(i, "CREATED", user));
+            } catch (RuntimeException e) {
+                results.add(BatchResult.failed(i, e.getMessage()));
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Updates many users in one call, using the id, full name and email of each item.
+     */
+    public List<BatchResult> updateUsers(List<User> changes) {
+        List<BatchResult> results = new ArrayList<>(changes.size());
+        for (int i = 0; i < changes.size(); i++) {
+            User change = changes.get(i);
+            try {
+                List<String> errors = updateValidator.validate(
+                        new Object[] {change.getId(), change.getFullName(), change.getEmail()});
+                if (!errors.isEmpty()) {
+                    results.add(BatchResult.failed(i, String.join("; ", errors)));
+                    continue;
+                }
+                User user = updateUser(change.getId(), change.getFullName(), change.getEmail());
+                results.add(BatchResult.succeeded(i, "UPDATED", user));
+            } catch (RuntimeException e) {
+                results.add(BatchResult.failed(i, e.getMessage()));
+            }
+        }
+        return results;
+    }
+    
+    public List<BatchResult> deleteUsers(List<Long> ids) {
+        List<BatchResult> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            try {
+                deleteUser(ids.get(i));
+                results.add(BatchResult.succeeded(i, "DELETED", null));
+            } catch (RuntimeException e) {
+                results.add(BatchResult.failed(i, e.getMessage()));
+            }
+        }
+        return results;
     }
     
     public void simulateError() {
@@ -67,11 +228,55 @@ public class UserService {
         throw new RuntimeException("Simulated error for demonstration");
     }
     
-    public static class User {
-        private Long id;
-        private String username;
-        private String fullName;
-        private String email;
+    /**
+     * Outcome of one item of a batch operation.
+     */
+    public static class BatchResult {
+        private final int index;
+        private final String status;
+        private final User user;
+        private final String error;
+        
+        private BatchResult(int index, String status, User user, String error) {
+            this.index = index;
+            this.status = status;
+            this.user = user;
+            this.error = error;
+        }
+        
+        static BatchResult succeeded(int index, String status, User user) {
+            return new BatchResult(index, status, user, null);
+        }
+        
+        static BatchResult failed(int index, String error) {
+            return new BatchResult(index, "FAILED", null, error);
+        }
+        
+        public int getIndex() { return index; }
+        public String getStatus() { return status; }
+        public User getUser() { return user; }
+        public String getError() { return error; }
+    }
+    
+    private static class Snapshot {
+        private final long version;
+        private final List<User> users;
+        
+        Snapshot(long version, List<User> users) {
+            this.version = version;
+            this.users = users;
+        }
+    }
+    
+    /**
+     * An immutable user: the store hands out its own instances, so a change
+     * is always a new User published by the service.
+     */
+    public static final class User {
+        private final Long id;
+        private final String username;
+        private final String fullName;
+        private final String email;
         
         public User(Long id, String username, String fullName, String email) {
             this.id = id;
@@ -80,18 +285,10 @@ public class UserService {
             this.email = email;
         }
         
-        // Getters and Setters
         public Long getId() { return id; }
-        public void setId(Long id) { this.id = id; }
-        
         public String getUsername() { return username; }
-        public void setUsername(String username) { this.username = username; }
-        
         public String getFullName() { return fullName; }
-        public void setFullName(String fullName) { this.fullName = fullName; }
-        
         public String getEmail() { return email; }
-        public void setEmail(String email) { this.email = email; }
         
         @Override
         public String toString() {
@@ -0,0 +1,126 @@
+package com.example.aoplab.validation;
+
+import org.springframework.util.ClassUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The constraint annotations of one method, turned into an array of plain checks.
+ *
+ * Validation walks every constrained parameter in a single pass and reports the
+ * first violated rule of each one. A valid call reads the arguments only and
+ * returns a shared empty list, so it does not allocate.
+ *
+ * Each rule is typed by the values it accepts, and compiling fails when an
+ * annotation sits on a parameter of another type.
+ */
+public final class CompiledValidator {
+    
+    static final CompiledValidator NONE = new CompiledValidator(new Check<?>[0]);
+    
+    private final Check<?>[] checks;
+    
+    private CompiledValidator(Check<?>[] checks) {
+        this.checks = checks;
+    }
+    
+    static CompiledValidator compile(Method method) {
+        List<Check<?>> compiled = new ArrayList<>();
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            for (Annotation annotation : parameterAnnotations[i]) {
+                Check<?> check = toCheck(annotation, i, parameterTypes[i], method);
+                if (check != null) {
+                    compiled.add(check);
+                }
+            }
+        }
+        if (compiled.isEmpty()) {
+            return NONE;
+        }
+        return new CompiledValidator(compiled.toArray(new Check<?>[0]));
+    }
+    
+    private static Check<?> toCheck(Annotation annotation, int parameter, Class<?> parameterType, Method method) {
+        if (annotation instanceof NotBlank notBlank) {
+            String message = notBlank.message();
+            return check(annotation, parameter, parameterType, method, String.class,
+                    value -> value == null || value.isBlank() ? message : null);
+        }
+        if (annotation instanceof MinLength minLength) {
+            int min = minLength.value();
+            String message = minLength.message();
+            return check(annotation, parameter, parameterType, method, String.class,
+                    value -> value != null && value.length() < min ? message : null);
+        }
+        if (annotation instanceof Contains contains) {
+            String required = contains.value();
+            String message = contains.message();
+            return check(annotation, parameter, parameterType, method, String.class,
+                    value -> value != null && !value.contains(required) ? message : null);
+        }
+        if (annotation instanceof Positive positive) {
+            String message = positive.message();
+            return check(annotation, parameter, parameterType, method, Number.class,
+                    value -> value == null || value.longValue() <= 0 ? message : null);
+        }
+        return null;
+    }
+    
+    private static <T> Check<T> check(Annotation annotation, int parameter, Class<?> parameterType, Method method,
+                                      Class<T> type, Rule<T> rule) {
+        if (!type.isAssignableFrom(ClassUtils.resolvePrimitiveIfNecessary(parameterType))) {
+            throw new IllegalStateException("@" + annotation.annotationType().getSimpleName() + " on parameter "
+                    + parameter + " of " + method.getDeclaringClass().getSimpleName() + "." + method.getName()
+                    + " needs a " + type.getSimpleName() + " parameter, found " + parameterType.getSimpleName());
+        }
+        return new Check<>(parameter, type, rule);
+    }
+    
+    public boolean hasRules() {
+        return checks.length > 0;
+    }
+    
+    /**
+     * Returns one message per invalid parameter, or an empty list when all arguments are valid.
+     */
+    public List<String> validate(Object[] args) {
+        List<String> errors = Collections.emptyList();
+        int failedParameter = -1;
+        for (Check<?> check : checks) {
+            if (check.parameter() == failedParameter) {
+                continue;
+            }
+            String error = check.apply(args);
+            if (error != null) {
+                if (errors.isEmpty()) {
+                    errors = new ArrayList<>(checks.length);
+                }
+                errors.add(error);
+                failedParameter = check.parameter();
+            }
+        }
+        return errors;
+    }
+    
+    @FunctionalInterface
+    private interface Rule<T> {
+        String check(T value);
+    }
+    
+    /**
+     * A rule bound to one parameter; compile() has checked that the parameter's
+     * values are all of type, so the cast cannot fail.
+     */
+    private record Check<T>(int parameter, Class<T> type, Rule<T> rule) {
+        
+        String apply(Object[] args) {
+            return rule.check(type.cast(args[parameter]));
+        }
+    }
+}
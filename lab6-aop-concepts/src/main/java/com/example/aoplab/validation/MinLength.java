@@ -0,0 +1,20 @@
+package com.example.aoplab.validation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The annotated string, when not null, must have at least {@link #value()} characters.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface MinLength {
+    
+    int value();
+    
+    String message() default "is too short";
+}
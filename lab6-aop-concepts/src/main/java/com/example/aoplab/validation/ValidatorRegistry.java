@@ -0,0 +1,34 @@
+package com.example.aoplab.validation;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles each method's parameter constraints once and hands out the result.
+ */
+@Component
+public class ValidatorRegistry {
+    
+    private final Map<Method, CompiledValidator> validators = new ConcurrentHashMap<>();
+    
+    /**
+     * Compiles the validators of every public method of the given type up front,
+     * so no compilation happens on the request path.
+     */
+    public void compileAll(Class<?> type) {
+        for (Method method : type.getMethods()) {
+            forMethod(method);
+        }
+    }
+    
+    public CompiledValidator forMethod(Method method) {
+        CompiledValidator validator = validators.get(method);
+        if (validator == null) {
+            validator = validators.computeIfAbsent(method, CompiledValidator::compile);
+        }
+        return validator;
+    }
+}
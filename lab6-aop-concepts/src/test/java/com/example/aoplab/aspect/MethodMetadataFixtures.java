@@ -0,0 +1,22 @@
+package com.example.aoplab.aspect;
+
+import java.lang.reflect.Method;
+
+/**
+ * MethodMetadata for tests outside the aspect package, which cannot build
+ * one from a join point.
+ */
+public final class MethodMetadataFixtures {
+    
+    private MethodMetadataFixtures() {
+    }
+    
+    public static MethodMetadata of(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = type.getMethod(name, parameterTypes);
+            return new MethodMetadata(method, method.toString(), type);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.aoplab.audit;
+
+import com.example.aoplab.aspect.MethodMetadata;
+import com.example.aoplab.aspect.MethodMetadataFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The writer is only started once the buffer has been filled, so every
+ * test controls exactly when the buffer is full.
+ */
+class AuditLogTest {
+    
+    private static final MethodMetadata METHOD = MethodMetadataFixtures.of(Greeter.class, "greet", String.class);
+    private static final Object[] ARGS = {"world"};
+    
+    private AuditLog auditLog;
+    
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        auditLog.shutdown();
+    }
+    
+    @Test
+    void dropDiscardsEventsWhileTheBufferIsFull() {
+        auditLog = new AuditLog(4, 16, OverflowPolicy.DROP, 1);
+        publish(6);
+        
+        assertThat(auditLog.getPublished()).isEqualTo(4);
+        assertThat(auditLog.getDropped()).isEqualTo(2);
+        assertThat(auditLog.getPending()).isEqualTo(4);
+        
+        auditLog.start();
+        awaitUntil(() -> auditLog.getWritten() == 4);
+        assertThat(auditLog.getPending()).isZero();
+        
+        publish(1);
+        awaitUntil(() -> auditLog.getWritten() == 5);
+        assertThat(auditLog.getDropped()).isEqualTo(2);
+    }
+    
+    @Test
+    void blockWaitsForTheWriterToFreeASlot() throws Exception {
+        auditLog = new AuditLog(4, 16, OverflowPolicy.BLOCK, 1);
+        publish(4);
+        
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> publish(1));
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertThat(blocked).isNotDone();
+        assertThat(auditLog.getPublished()).isEqualTo(4);
+        
+        auditLog.start();
+        blocked.get(5, TimeUnit.SECONDS);
+        awaitUntil(() -> auditLog.getWritten() == 5);
+        assertThat(auditLog.getPublished()).isEqualTo(5);
+        assertThat(auditLog.getDropped()).isZero();
+    }
+    
+    @Test
+    void sampleKeepsEveryNthEventAboveHalfFullAndDropsWhenFull() {
+        auditLog = new AuditLog(8, 16, OverflowPolicy.SAMPLE, 2);
+        
+        publish(4);
+        assertThat(auditLog.getPublished()).as("below half, everything is kept").isEqualTo(4);
+        
+        publish(8);
+        assertThat(auditLog.getPublished()).as("above half, one in two is kept").isEqualTo(8);
+        assertThat(auditLog.getDropped()).isEqualTo(4);
+        
+        publish(4);
+        assertThat(auditLog.getPublished()).as("full, nothing is kept").isEqualTo(8);
+        assertThat(auditLog.getDropped()).isEqualTo(8);
+        
+        auditLog.start();
+        awaitUntil(() -> auditLog.getWritten() == 8);
+    }
+    
+    private void publish(int count) {
+        for (int i = 0; i < count; i++) {
+            auditLog.publish(AuditEventType.BEFORE, METHOD, ARGS);
+        }
+    }
+    
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out waiting").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+    
+    public interface Greeter {
+        
+        String greet(String name);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.aoplab.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditRingBufferTest {
+    
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertThat(new AuditRingBuffer(5).capacity()).isEqualTo(8);
+        assertThat(new AuditRingBuffer(8).capacity()).isEqualTo(8);
+        assertThat(new AuditRingBuffer(1).capacity()).isEqualTo(2);
+    }
+    
+    @Test
+    void slotsAreReusedInOrderAcrossManyWrapArounds() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        long next = 0;
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 4; i++) {
+                long position = buffer.tryClaim();
+                assertThat(position).isEqualTo(next + i);
+                buffer.slot(position).durationNanos = position;
+                buffer.publish(position);
+            }
+            assertThat(buffer.tryClaim()).as("full").isEqualTo(-1);
+            assertThat(buffer.size()).isEqualTo(4);
+            
+            for (int i = 0; i < 4; i++) {
+                AuditEvent event = buffer.poll();
+                assertThat(event.durationNanos).isEqualTo(next + i);
+                buffer.release(event);
+            }
+            assertThat(buffer.poll()).isNull();
+            next += 4;
+        }
+    }
+    
+    @Test
+    void claimedSlotIsNotVisibleUntilPublished() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        long first = buffer.tryClaim();
+        long second = buffer.tryClaim();
+        buffer.publish(second);
+        // the consumer reads in order, so the second event waits for the first
+        assertThat(buffer.poll()).isNull();
+        
+        buffer.publish(first);
+        buffer.release(buffer.poll());
+        assertThat(buffer.poll()).isNotNull();
+    }
+    
+    @Test
+    void concurrentProducersLoseAndDuplicateNothing() throws Exception {
+        int producers = 4;
+        int eventsPerProducer = 50_000;
+        AuditRingBuffer buffer = new AuditRingBuffer(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (long i = 0; i < eventsPerProducer; i++) {
+                    long position;
+                    while ((position = buffer.tryClaim()) < 0) {
+                        Thread.onSpinWait();
+                    }
+                    buffer.slot(position).durationNanos = producer << 32 | i;
+                    buffer.publish(position);
+                }
+                return null;
+            }));
+        }
+        
+        start.countDown();
+        // each producer claims in its own order, so its events must come out in that order
+        long[] nextByProducer = new long[producers];
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        for (int received = 0; received < producers * eventsPerProducer; ) {
+            AuditEvent event = buffer.poll();
+            if (event == null) {
+                assertThat(System.nanoTime()).as("events still missing").isLessThan(deadline);
+                Thread.onSpinWait();
+                continue;
+            }
+            int producer = (int) (event.durationNanos >>> 32);
+            assertThat(event.durationNanos & 0xFFFFFFFFL).isEqualTo(nextByProducer[producer]);
+            nextByProducer[producer]++;
+            buffer.release(event);
+            received++;
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        assertThat(nextByProducer).containsOnly(eventsPerProducer);
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.size()).isZero();
+    }
+}
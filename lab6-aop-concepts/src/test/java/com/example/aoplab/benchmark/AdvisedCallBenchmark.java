@@ -0,0 +1,69 @@
+package com.example.aoplab.benchmark;
+
+import com.example.aoplab.AopLabApplication;
+import com.example.aoplab.service.UserService;
+import com.example.aoplab.validation.ValidatorRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the aspects around a service call: UserService.findUserById through
+ * the Spring proxy (performance and logging advice) against the same call on a
+ * plain UserService.
+ *
+ * Run with {@code -prof gc} to see the allocation per call of the advice chain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdvisedCallBenchmark {
+    
+    private ConfigurableApplicationContext context;
+    private UserService advised;
+    private UserService unadvised;
+    private final Long id = 1L;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(AopLabApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.com.example.aoplab=INFO", "logging.level.org.springframework.aop=INFO")
+                .run();
+        advised = context.getBean(UserService.class);
+        unadvised = new UserService(new ValidatorRegistry());
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Optional<UserService.User> advised() {
+        return advised.findUserById(id);
+    }
+    
+    @Benchmark
+    public Optional<UserService.User> unadvised() {
+        return unadvised.findUserById(id);
+    }
+}
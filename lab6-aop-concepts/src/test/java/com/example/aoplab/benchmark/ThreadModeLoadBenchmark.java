@@ -0,0 +1,132 @@
+package com.example.aoplab.benchmark;
+
+import com.example.aoplab.AopLabApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load-test harness for spring.threads.virtual.enabled: starts the application
+ * once on platform threads and once on virtual threads and sends the same
+ * burst of concurrent blocking requests to each, reporting throughput and
+ * p99 latency.
+ *
+ * The requests go to a route that only sleeps, standing in for a blocking
+ * JDBC or HTTP call, so the numbers show how many blocked requests each mode
+ * can keep in flight. Run with ./gradlew benchmark and tune it with
+ * -Dbenchmark.concurrency (10000), -Dbenchmark.rounds (3) and
+ * -Dbenchmark.block-millis (100). Every concurrent request holds a socket on
+ * both sides, so raise the open file limit to at least twice the concurrency.
+ */
+@Tag("benchmark")
+class ThreadModeLoadBenchmark {
+    
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 10_000);
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 3);
+    private static final long BLOCK_MILLIS = Long.getLong("benchmark.block-millis", 100);
+    
+    @Test
+    void compareThreadModes() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+        System.out.printf("%n%d concurrent clients x %d requests, %d ms blocking each%n", CONCURRENCY, ROUNDS, BLOCK_MILLIS);
+        System.out.printf("%-9s %12s %10s %10s%n", "threads", "requests/s", "p50 ms", "p99 ms");
+        platform.print("platform");
+        virtual.print("virtual");
+    }
+    
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AopLabApplication.class)
+                .initializers(ThreadModeLoadBenchmark::registerBlockingRoute)
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.max-connections=" + (CONCURRENCY + 1000),
+                        "server.tomcat.accept-count=" + CONCURRENCY,
+                        "logging.level.com.example.aoplab=INFO",
+                        "logging.level.org.springframework.aop=INFO")
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            return load(URI.create("http://localhost:" + port + "/benchmark/block"));
+        }
+    }
+    
+    private static void registerBlockingRoute(ConfigurableApplicationContext context) {
+        // registered here rather than as a scanned bean, so it only exists in this harness
+        ((GenericApplicationContext) context).registerBean("blockingRoute", RouterFunction.class,
+                () -> RouterFunctions.route()
+                        .GET("/benchmark/block", request -> {
+                            Thread.sleep(BLOCK_MILLIS);
+                            return ServerResponse.ok().body("ok");
+                        })
+                        .build());
+    }
+    
+    private static Result load(URI uri) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofMinutes(2)).build();
+        // one request first, so startup costs are not measured
+        client.send(request, HttpResponse.BodyHandlers.discarding());
+        
+        long[] latencies = new long[CONCURRENCY * ROUNDS];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> clients = new ArrayList<>(CONCURRENCY);
+        long elapsed;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CONCURRENCY; c++) {
+                int first = c * ROUNDS;
+                clients.add(executor.submit(() -> {
+                    start.await();
+                    for (int r = 0; r < ROUNDS; r++) {
+                        long started = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[first + r] = System.nanoTime() - started;
+                        assertThat(response.statusCode()).isEqualTo(200);
+                    }
+                    return null;
+                }));
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : clients) {
+                future.get(10, TimeUnit.MINUTES);
+            }
+            elapsed = System.nanoTime() - started;
+        }
+        Arrays.sort(latencies);
+        return new Result(latencies.length * 1e9 / elapsed,
+                latencies[latencies.length / 2] / 1e6,
+                latencies[(int) Math.ceil(latencies.length * 0.99) - 1] / 1e6);
+    }
+    
+    private record Result(double throughput, double p50Millis, double p99Millis) {
+        
+        void print(String mode) {
+            System.out.printf("%-9s %12.0f %10.1f %10.1f%n", mode, throughput, p50Millis, p99Millis);
+        }
+    }
+}
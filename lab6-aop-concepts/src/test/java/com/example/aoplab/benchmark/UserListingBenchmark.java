@@ -0,0 +1,74 @@
+package com.example.aoplab.benchmark;
+
+import com.example.aoplab.controller.UserController;
+import com.example.aoplab.service.UserService;
+import com.example.aoplab.validation.ValidatorRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/users at 10k and 1M users, serialized to a discarding stream: one
+ * keyset page, the NDJSON stream, and the full list.
+ *
+ * Run with {@code -prof gc} to compare memory: a page allocates the same per
+ * request at both sizes, and the stream allocates a small fixed amount per
+ * user while never holding more than one user and the generator's buffer.
+ * The full list serializes the cached snapshot without copying it, but it is
+ * one response that grows with the store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class UserListingBenchmark {
+    
+    @Param({"10000", "1000000"})
+    public int users;
+    
+    private UserController controller;
+    private ObjectMapper objectMapper;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        UserService service = new UserService(new ValidatorRegistry());
+        for (int i = 0; i < users; i++) {
+            service.createUser("user" + i, "User " + i, "user" + i + "@example.com");
+        }
+        objectMapper = new ObjectMapper();
+        controller = new UserController(service, objectMapper);
+    }
+    
+    @Benchmark
+    public void page() throws IOException {
+        long after = ThreadLocalRandom.current().nextLong(users - 100);
+        objectMapper.writeValue(OutputStream.nullOutputStream(), controller.getAllUsers(after, 100).getBody());
+    }
+    
+    @Benchmark
+    public void stream() throws IOException {
+        controller.streamAllUsers().getBody().writeTo(OutputStream.nullOutputStream());
+    }
+    
+    @Benchmark
+    public void fullList() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), controller.getAllUsers(null, null).getBody());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.aoplab.benchmark;
+
+import com.example.aoplab.service.UserService;
+import com.example.aoplab.validation.ValidatorRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The indexed user store at 1M users: lookups by id and username, create plus
+ * delete (which keeps the size constant), and the cached getAllUsers snapshot.
+ * {@code linearScanById} is the lookup the store replaced, a stream over a list.
+ *
+ * Run with {@code -t} to load the store from several threads at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class UserStoreBenchmark {
+    
+    @Param("1000000")
+    public int users;
+    
+    private UserService service;
+    private String[] usernames;
+    private List<UserService.User> list;
+    private final AtomicLong created = new AtomicLong();
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        service = new UserService(new ValidatorRegistry());
+        // the three sample users are ids 1 to 3
+        usernames = new String[users];
+        for (int i = 0; i < users; i++) {
+            usernames[i] = "user" + i;
+            service.createUser(usernames[i], "User " + i, "user" + i + "@example.com");
+        }
+        list = new ArrayList<>(service.getAllUsers());
+    }
+    
+    @Benchmark
+    public Optional<UserService.User> findUserById() {
+        return service.findUserById(ThreadLocalRandom.current().nextLong(1, users + 4));
+    }
+    
+    @Benchmark
+    public UserService.User getUserByUsername() {
+        return service.getUserByUsername(usernames[ThreadLocalRandom.current().nextInt(users)]);
+    }
+    
+    @Benchmark
+    public void createAndDeleteUser() {
+        UserService.User user = service.createUser("bench" + created.incrementAndGet(), "Bench", "bench@example.com");
+        service.deleteUser(user.getId());
+    }
+    
+    @Benchmark
+    public List<UserService.User> getAllUsers() {
+        return service.getAllUsers();
+    }
+    
+    @Benchmark
+    public Optional<UserService.User> linearScanById() {
+        long id = ThreadLocalRandom.current().nextLong(1, users + 4);
+        return list.stream().filter(user -> user.getId().equals(id)).findFirst();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.aoplab.benchmark;
+
+import com.example.aoplab.service.UserService;
+import com.example.aoplab.validation.CompiledValidator;
+import com.example.aoplab.validation.ValidatorRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The compiled createUser validator against the checks ValidationAspect used
+ * to run on every call (trim, then fail on the first error, then build a
+ * "Validation passed" line per field). The old lines went to System.out;
+ * here they go to a Blackhole, so console output is not part of the numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+    
+    private CompiledValidator validator;
+    private final Object[] valid = {"john.doe", "John Doe", "john@example.com"};
+    private final Object[] invalid = {"jo", " ", "john.example.com"};
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        validator = new ValidatorRegistry().forMethod(
+                UserService.class.getMethod("createUser", String.class, String.class, String.class));
+    }
+    
+    @Benchmark
+    public List<String> compiledValid() {
+        return validator.validate(valid);
+    }
+    
+    @Benchmark
+    public List<String> compiledInvalid() {
+        return validator.validate(invalid);
+    }
+    
+    @Benchmark
+    public void legacyValid(Blackhole blackhole) {
+        legacyValidateCreate(valid, blackhole);
+    }
+    
+    @Benchmark
+    public Object legacyInvalid(Blackhole blackhole) {
+        try {
+            legacyValidateCreate(invalid, blackhole);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+    
+    /**
+     * ValidationAspect.validateCreateUserInput as it was before the rules were compiled.
+     */
+    private static void legacyValidateCreate(Object[] args, Blackhole blackhole) {
+        if (args.length >= 3) {
+            String username = (String) args[0];
+            String fullName = (String) args[1];
+            String email = (String) args[2];
+            
+            if (username == null || username.trim().isEmpty()) {
+                throw new IllegalArgumentException("Username cannot be null or empty");
+            }
+            if (username.length() < 3) {
+                throw new IllegalArgumentException("Username must be at least 3 characters long");
+            }
+            if (fullName == null || fullName.trim().isEmpty()) {
+                throw new IllegalArgumentException("Full name cannot be null or empty");
+            }
+            if (email == null || email.trim().isEmpty()) {
+                throw new IllegalArgumentException("Email cannot be null or empty");
+            }
+            if (!email.contains("@")) {
+                throw new IllegalArgumentException("Email must contain @ symbol");
+            }
+            
+            blackhole.consume("Validation passed for username: " + username);
+            blackhole.consume("Validation passed for fullName: " + fullName);
+            blackhole.consume("Validation passed for email: " + email);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.aoplab.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyHistogramTest {
+    
+    // every power of two is split into 16 sub-buckets, so a bucket spans at most 1/16 of its values
+    private static final double MAX_RELATIVE_ERROR = 1.0 / 16;
+    
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 20; nanos++) {
+            histogram.recordSuccess(nanos);
+        }
+        
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(20);
+        assertThat(snapshot.getValueAtPercentile(50)).isEqualTo(10);
+        assertThat(snapshot.getValueAtPercentile(95)).isEqualTo(19);
+        assertThat(snapshot.getValueAtPercentile(100)).isEqualTo(20);
+        assertThat(snapshot.getMeanNanos()).isEqualTo(10);
+    }
+    
+    @Test
+    void percentilesStayWithinTheBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1 us to 1 ms in 1 us steps: the n-th percentile is n * 10 us
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.recordSuccess(micros * 1000);
+        }
+        histogram.recordFailure(2_000_000);
+        
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(1001);
+        assertThat(snapshot.getFailures()).isEqualTo(1);
+        assertThat(snapshot.getMaxNanos()).isEqualTo(2_000_000);
+        assertWithinBucket(snapshot.getValueAtPercentile(50), 501_000);
+        assertWithinBucket(snapshot.getValueAtPercentile(90), 901_000);
+        assertWithinBucket(snapshot.getValueAtPercentile(99), 991_000);
+        assertThat(snapshot.getValueAtPercentile(100)).isEqualTo(2_000_000);
+    }
+    
+    @Test
+    void everyValueFallsInABucketThatCoversIt() {
+        for (long value = 0; value < 1L << 40; value = value * 3 / 2 + 1) {
+            int index = LatencyHistogram.indexOf(value);
+            assertThat(LatencyHistogram.highestValueIn(index)).as("bucket of %d", value)
+                    .isGreaterThanOrEqualTo(value)
+                    .isLessThanOrEqualTo(value + (long) (value * MAX_RELATIVE_ERROR));
+            if (index > 0) {
+                assertThat(LatencyHistogram.highestValueIn(index - 1)).as("bucket below %d", value).isLessThan(value);
+            }
+        }
+    }
+    
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertThat(snapshot.getCount()).isZero();
+        assertThat(snapshot.getValueAtPercentile(99)).isZero();
+        assertThat(snapshot.getMeanNanos()).isZero();
+    }
+    
+    /**
+     * The reported value is the top of the bucket holding the expected one.
+     */
+    private static void assertWithinBucket(long reported, long expected) {
+        assertThat(reported).isBetween(expected, expected + (long) (expected * MAX_RELATIVE_ERROR));
+    }
+}
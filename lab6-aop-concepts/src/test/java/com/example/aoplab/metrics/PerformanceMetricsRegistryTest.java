@@ -0,0 +1,34 @@
+package com.example.aoplab.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PerformanceMetricsRegistryTest {
+    
+    @Test
+    void overloadsAreMeasuredApart() throws Exception {
+        PerformanceMetricsRegistry registry = new PerformanceMetricsRegistry();
+        Method single = Users.class.getMethod("delete", Long.class);
+        Method batch = Users.class.getMethod("delete", List.class);
+        
+        registry.histogramFor(single).recordSuccess(100);
+        registry.histogramFor(batch).recordSuccess(5_000);
+        registry.histogramFor(batch).recordSuccess(5_000);
+        
+        assertThat(registry.snapshots()).containsOnlyKeys("Users.delete(Long)", "Users.delete(List)");
+        assertThat(registry.snapshot("Users.delete(Long)").getCount()).isEqualTo(1);
+        assertThat(registry.snapshot("Users.delete(List)").getCount()).isEqualTo(2);
+        assertThat(registry.histogramFor(single)).isSameAs(registry.histogramFor(single));
+    }
+    
+    public interface Users {
+        
+        void delete(Long id);
+        
+        void delete(List<Long> ids);
+    }
+}
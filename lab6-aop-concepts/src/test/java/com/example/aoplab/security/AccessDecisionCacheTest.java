@@ -0,0 +1,214 @@
+package com.example.aoplab.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class AccessDecisionCacheTest {
+    
+    private static final AccessDecisionProvider ALLOW_ALL = new AccessDecisionProvider() {
+        @Override
+        public boolean authenticate(String principal) {
+            Thread.yield();
+            return true;
+        }
+        
+        @Override
+        public boolean authorize(String principal, String operation) {
+            Thread.yield();
+            return true;
+        }
+    };
+    
+    @Test
+    void concurrentMissesMakeOneProviderCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        AccessDecisionCache cache = new AccessDecisionCache(new AccessDecisionProvider() {
+            @Override
+            public boolean authenticate(String principal) {
+                return true;
+            }
+            
+            @Override
+            public boolean authorize(String principal, String operation) {
+                calls.incrementAndGet();
+                awaitQuietly(release);
+                return true;
+            }
+        }, Duration.ofMinutes(5), 100);
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < callers; t++) {
+            results.add(executor.submit(() -> cache.isAuthorized("p", "op")));
+        }
+        // one caller is inside the provider and every other one waits for its answer
+        awaitUntil(() -> calls.get() == 1 && cache.getCoalesced() == callers - 1);
+        release.countDown();
+        
+        for (Future<Boolean> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isTrue();
+        }
+        executor.shutdown();
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(cache.getSize()).isEqualTo(1);
+    }
+    
+    @Test
+    void expiredDecisionIsServedWhileOneCallerRefreshesIt() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch refreshing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AccessDecisionCache cache = new AccessDecisionCache(new AccessDecisionProvider() {
+            @Override
+            public boolean authenticate(String principal) {
+                return true;
+            }
+            
+            @Override
+            public boolean authorize(String principal, String operation) {
+                if (calls.incrementAndGet() == 1) {
+                    return true;
+                }
+                // the refresh: the permission was revoked, and the provider is slow to say so
+                refreshing.countDown();
+                awaitQuietly(release);
+                return false;
+            }
+        }, Duration.ofMillis(50), 100);
+        assertThat(cache.isAuthorized("p", "op")).isTrue();
+        Thread.sleep(100);
+        
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Boolean> refresher = executor.submit(() -> cache.isAuthorized("p", "op"));
+        assertThat(refreshing.await(10, TimeUnit.SECONDS)).isTrue();
+        // the other callers do not wait for the provider, they get the expired decision
+        for (int i = 0; i < 5; i++) {
+            assertThat(assertTimeoutPreemptively(Duration.ofSeconds(5), () -> cache.isAuthorized("p", "op")))
+                    .isTrue();
+        }
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(cache.getStaleHits()).isEqualTo(5);
+        
+        release.countDown();
+        assertThat(refresher.get(10, TimeUnit.SECONDS)).isFalse();
+        executor.shutdown();
+        assertThat(cache.isAuthorized("p", "op")).isFalse();
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(cache.getExpirations()).isEqualTo(1);
+    }
+    
+    @Test
+    void sizeMatchesEntriesAfterLoadsRaceWithInvalidation() throws Exception {
+        AccessDecisionCache cache = new AccessDecisionCache(ALLOW_ALL, Duration.ofMinutes(5), 1_000_000);
+        ExecutorService executor = Executors.newFixedThreadPool(9);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        List<Future<?>> loaders = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            loaders.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 50_000; i++) {
+                    cache.isAuthorized("p" + random.nextInt(10), "op" + random.nextInt(200));
+                }
+                return null;
+            }));
+        }
+        Future<?> invalidator = executor.submit(() -> {
+            start.await();
+            while (!done.get()) {
+                cache.invalidate("p" + ThreadLocalRandom.current().nextInt(10));
+            }
+            return null;
+        });
+        
+        start.countDown();
+        for (Future<?> loader : loaders) {
+            loader.get(60, TimeUnit.SECONDS);
+        }
+        done.set(true);
+        invalidator.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+        
+        int size = cache.getSize();
+        assertThat(size).isBetween(0, 10 * 200);
+        assertThat(cache.invalidateAll()).isEqualTo(size);
+        assertThat(cache.getSize()).isZero();
+    }
+    
+    @Test
+    void evictionKeepsCacheNearItsBound() {
+        AccessDecisionCache cache = new AccessDecisionCache(ALLOW_ALL, Duration.ofMinutes(5), 100);
+        for (int i = 0; i < 1_000; i++) {
+            cache.isAuthorized("p" + i % 7, "op" + i);
+            assertThat(cache.getSize()).isBetween(1, 100);
+        }
+        assertThat(cache.getSize()).isGreaterThanOrEqualTo(90);
+        assertThat(cache.getEvictions()).isEqualTo(1_000 - cache.getSize());
+    }
+    
+    @Test
+    void providerErrorDoesNotStrandLaterCallers() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        AccessDecisionProvider failingOnce = new AccessDecisionProvider() {
+            @Override
+            public boolean authenticate(String principal) {
+                return true;
+            }
+            
+            @Override
+            public boolean authorize(String principal, String operation) {
+                if (calls.getAndIncrement() == 0) {
+                    throw new AssertionError("provider blew up");
+                }
+                return true;
+            }
+        };
+        AccessDecisionCache cache = new AccessDecisionCache(failingOnce, Duration.ofMinutes(5), 100);
+        
+        assertThatThrownBy(() -> cache.isAuthorized("p", "op")).isInstanceOf(AssertionError.class);
+        assertThat(cache.getSize()).isZero();
+        assertThat(cache.getLoadFailures()).isEqualTo(1);
+        
+        // the failed entry is gone, so the next caller loads again instead of waiting on it forever
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Boolean> next = executor.submit(() -> cache.isAuthorized("p", "op"));
+        assertThat(next.get(10, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        assertThat(calls.get()).isEqualTo(2);
+    }
+    
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("condition not met in time").isNegative();
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.aoplab.service;
+
+import com.example.aoplab.validation.ValidatorRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers the user store from many threads and checks that ids stay unique,
+ * usernames stay unique, the username index matches the store and readers
+ * never see a half-applied update.
+ */
+class UserServiceConcurrencyTest {
+    
+    private static final int THREADS = 8;
+    private static final int USERS_PER_THREAD = 2_000;
+    private static final int UPDATES_PER_THREAD = 50_000;
+    private static final int SHARED_NAMES = 200;
+    private static final int HOT_USERS = 4;
+    
+    @Test
+    void concurrentCreatesUpdatesDeletesAndReadsStayConsistent() throws Exception {
+        UserService service = new UserService(new ValidatorRegistry());
+        List<Long> hotIds = new ArrayList<>();
+        for (int i = 0; i < HOT_USERS; i++) {
+            hotIds.add(service.createUser("hot" + i, "v0", "v0@example.com").getId());
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(3 * THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writersDone = new AtomicBoolean();
+        AtomicInteger tornReads = new AtomicInteger();
+        AtomicInteger sharedNameWins = new AtomicInteger();
+        ConcurrentLinkedQueue<Long> deletedIds = new ConcurrentLinkedQueue<>();
+        List<Future<?>> writers = new ArrayList<>();
+        List<Future<?>> others = new ArrayList<>();
+        
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            // creators: unique names plus a set of names every thread races for; every other user is deleted again
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < USERS_PER_THREAD; i++) {
+                    UserService.User user = service.createUser("user-" + thread + "-" + i, "Full Name", "u@example.com");
+                    if (i % 2 == 0) {
+                        service.deleteUser(user.getId());
+                        deletedIds.add(user.getId());
+                    }
+                    if (i < SHARED_NAMES) {
+                        try {
+                            service.createUser("shared" + i, "Shared", "s@example.com");
+                            sharedNameWins.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            assertThat(e).hasMessageContaining("already exists");
+                        }
+                    }
+                }
+                return null;
+            }));
+            // updaters: full name and email always carry the same version number
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 1; i <= UPDATES_PER_THREAD; i++) {
+                    String version = "v" + (thread * UPDATES_PER_THREAD + i);
+                    service.updateUser(hotIds.get(i % HOT_USERS), version, version + "@example.com");
+                }
+                return null;
+            }));
+            // readers: single lookups and whole-store snapshots
+            others.add(executor.submit(() -> {
+                start.await();
+                while (!writersDone.get()) {
+                    for (Long id : hotIds) {
+                        service.findUserById(id).ifPresent(user -> checkConsistent(user, tornReads));
+                    }
+                    for (UserService.User user : service.getAllUsers()) {
+                        if (user.getUsername().startsWith("hot")) {
+                            checkConsistent(user, tornReads);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        writersDone.set(true);
+        for (Future<?> other : others) {
+            other.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        assertThat(tornReads).hasValue(0);
+        assertThat(sharedNameWins).hasValue(SHARED_NAMES);
+        
+        List<UserService.User> users = service.getAllUsers();
+        int expected = 3 + HOT_USERS + THREADS * USERS_PER_THREAD / 2 + SHARED_NAMES;
+        assertThat(users).hasSize(expected);
+        
+        Set<Long> ids = new HashSet<>();
+        Set<String> usernames = new HashSet<>();
+        for (UserService.User user : users) {
+            assertThat(ids.add(user.getId())).isTrue();
+            assertThat(usernames.add(user.getUsername())).isTrue();
+            assertThat(service.getUserByUsername(user.getUsername()).getId()).isEqualTo(user.getId());
+            assertThat(service.findUserById(user.getId())).containsSame(user);
+        }
+        for (Long id : deletedIds) {
+            assertThat(service.findUserById(id)).isEmpty();
+        }
+    }
+    
+    private static void checkConsistent(UserService.User user, AtomicInteger tornReads) {
+        if (!user.getEmail().equals(user.getFullName() + "@example.com")) {
+            tornReads.incrementAndGet();
+        }
+    }
+}